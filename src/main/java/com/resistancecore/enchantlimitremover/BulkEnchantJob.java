@@ -0,0 +1,299 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Adds, removes or clears enchantments on items of other players, started with
+ * {@code /elrenchant add|remove|clear ... <player|selector> [slot]}.
+ * Targets are processed a few players per tick and the sender gets one summary when all are done.
+ * Added enchantments respect each target's limits, disabled enchantments and conflicts; items that would
+ * break them are skipped and counted. When the whole inventory is targeted, enchantments are only added
+ * to items that can carry them. No economy costs are charged. Main thread only.
+ * <p>
+ * The enchantment index belongs to the registry it was resolved in. If a reload or datapack reload replaces
+ * the registry while the job runs, the index may name another enchantment, so an add or remove job stops
+ * and reports the players it did not reach.
+ */
+public class BulkEnchantJob implements Runnable {
+    /** Slot of the held item */
+    public static final int HAND = -1;
+    /** All slots, including armor and offhand */
+    public static final int INVENTORY = -2;
+    private static final int OFFHAND = 40;
+    private static final int INVENTORY_SIZE = 41;
+
+    public enum Action { ADD, REMOVE, CLEAR }
+
+    private final EnchantLimitRemover plugin;
+    private final CommandSender sender;
+    private final EnchantmentRegistry registry;
+    private final Action action;
+    private final int index;
+    private final int level;
+    private final int slot;
+    private final Deque<UUID> pending = new ArrayDeque<>();
+    private int players;
+    private int changed;
+    private int skipped;
+    private int ticks;
+    private BukkitTask task;
+
+    private BulkEnchantJob(EnchantLimitRemover plugin, CommandSender sender, EnchantmentRegistry registry, Action action,
+                           int index, int level, int slot) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.registry = registry;
+        this.action = action;
+        this.index = index;
+        this.level = level;
+        this.slot = slot;
+    }
+
+    /**
+     * Starts a job; the first batch runs immediately, so small jobs finish within the command
+     * @param registry The registry the index was resolved in
+     * @param index The enchantment's registry index, ignored for {@link Action#CLEAR}
+     * @param level The level to add, ignored unless adding
+     * @param slot A raw player inventory slot, {@link #HAND} or {@link #INVENTORY}
+     */
+    public static BulkEnchantJob start(EnchantLimitRemover plugin, CommandSender sender, EnchantmentRegistry registry,
+                                       Action action, int index, int level, int slot, Set<Player> targets) {
+        BulkEnchantJob job = new BulkEnchantJob(plugin, sender, registry, action, index, level, slot);
+        for (Player target : targets) {
+            job.pending.add(target.getUniqueId());
+        }
+        job.run();
+        if (!job.pending.isEmpty()) {
+            job.task = plugin.getServer().getScheduler().runTaskTimer(plugin, job, 1L, 1L);
+        }
+        return job;
+    }
+
+    /**
+     * Resolves a player name or an entity selector such as {@code @a[distance=..50]} to online players
+     * @throws IllegalArgumentException if the selector is invalid
+     */
+    public static Set<Player> selectPlayers(EnchantLimitRemover plugin, CommandSender sender, String target) {
+        Set<Player> players = new LinkedHashSet<>();
+        if (target.startsWith("@")) {
+            for (Entity entity : plugin.getServer().selectEntities(sender, target)) {
+                if (entity instanceof Player) {
+                    players.add((Player) entity);
+                }
+            }
+        } else {
+            Player player = plugin.getServer().getPlayerExact(target);
+            if (player != null) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Parses a slot name (hand, offhand, head, chest, legs, feet, inventory) or a raw slot number 0-40
+     * @return the slot, or null if the name is unknown
+     */
+    public static Integer parseSlot(String name) {
+        switch (name.toLowerCase()) {
+            case "hand": case "mainhand": return HAND;
+            case "offhand": return OFFHAND;
+            case "feet": case "boots": return 36;
+            case "legs": case "leggings": return 37;
+            case "chest": case "chestplate": return 38;
+            case "head": case "helmet": return 39;
+            case "inventory": case "all": return INVENTORY;
+            default:
+                try {
+                    int slot = Integer.parseInt(name);
+                    return slot >= 0 && slot < INVENTORY_SIZE ? slot : null;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+        }
+    }
+
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    @Override
+    public void run() {
+        ticks++;
+        if (action != Action.CLEAR && plugin.getPolicy().getRegistry() != registry) {
+            abort();
+            return;
+        }
+        int budget = Math.max(1, plugin.getConfig().getInt("performance.bulk-players-per-tick", 5));
+        while (budget > 0 && !pending.isEmpty()) {
+            Player player = plugin.getServer().getPlayer(pending.poll());
+            if (player != null) {
+                process(player);
+                players++;
+                budget--;
+            }
+        }
+        if (!pending.isEmpty()) {
+            return;
+        }
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        String name = action == Action.CLEAR ? "all enchantments" : registry.getName(index);
+        sender.sendMessage(getConfigMessage("bulk-summary", "{prefix}§a{action} §e{enchantment}§a: changed §e{items} §aitems of §e{players} §aplayers, skipped §e{skipped} §ain §e{ticks} §aticks.")
+                .replace("{action}", action.name().toLowerCase())
+                .replace("{enchantment}", name)
+                .replace("{items}", String.valueOf(changed))
+                .replace("{players}", String.valueOf(players))
+                .replace("{skipped}", String.valueOf(skipped))
+                .replace("{ticks}", String.valueOf(ticks)));
+        plugin.getLogger().info(sender.getName() + " ran " + action.name().toLowerCase() + " " + name + (action == Action.ADD ? " " + level : "")
+                + " on " + players + " players: " + changed + " items changed, " + skipped + " skipped");
+    }
+
+    /**
+     * Stops the job because the registry was replaced, reporting what was done and how many players were left
+     */
+    private void abort() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        String name = registry.getName(index);
+        sender.sendMessage(getConfigMessage("bulk-aborted", "{prefix}§c{action} §e{enchantment}§c stopped: enchantments were reloaded. Changed §e{items} §citems of §e{players} §cplayers, §e{remaining} §cplayers were not processed.")
+                .replace("{action}", action.name().toLowerCase())
+                .replace("{enchantment}", name)
+                .replace("{items}", String.valueOf(changed))
+                .replace("{players}", String.valueOf(players))
+                .replace("{remaining}", String.valueOf(pending.size())));
+        plugin.getLogger().warning(sender.getName() + "'s " + action.name().toLowerCase() + " " + name + " stopped after " + players
+                + " players because enchantments were reloaded; " + pending.size() + " players were not processed");
+        pending.clear();
+    }
+
+    private void process(Player player) {
+        PlayerInventory inventory = player.getInventory();
+        if (slot == INVENTORY) {
+            for (int i = 0; i < INVENTORY_SIZE; i++) {
+                process(player, inventory.getItem(i), true);
+            }
+        } else {
+            process(player, inventory.getItem(slot == HAND ? inventory.getHeldItemSlot() : slot), false);
+        }
+    }
+
+    /**
+     * Applies the action to one item; items of a player inventory are live, so changes need no write-back
+     */
+    private void process(Player player, ItemStack item, boolean wholeInventory) {
+        if (item == null || item.getType().isAir()) {
+            return;
+        }
+        boolean done;
+        switch (action) {
+            case ADD:
+                done = add(player, item, wholeInventory);
+                break;
+            case REMOVE:
+                done = remove(item);
+                break;
+            default:
+                done = clear(item);
+                break;
+        }
+        if (done) {
+            changed++;
+        }
+    }
+
+    private boolean add(Player player, ItemStack item, boolean wholeInventory) {
+        boolean book = item.getType() == Material.ENCHANTED_BOOK;
+        boolean custom = registry.isCustom(index);
+        Enchantment enchantment = custom ? null : registry.getEnchantment(index);
+        // Custom enchantments have no item targets; limit them to tools, weapons and armor
+        if (wholeInventory && !book && (custom ? item.getType().getMaxDurability() <= 0 : !enchantment.canEnchantItem(item))) {
+            return false;
+        }
+        EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+        if ((policy.isDisabled(index) && !player.hasPermission("elr.bypass.disabled"))
+                || level > plugin.getMaxLevel(player, index, item.getType())
+                || (policy.isEnforceConflicts() && !player.hasPermission("elr.bypass.conflicts")
+                        && EnchantCommand.findConflict(registry, plugin.getCustomEnchantments(), index, item) != null)) {
+            skipped++;
+            return false;
+        }
+
+        if (custom) {
+            plugin.getCustomEnchantments().apply(item, registry.getCustom(index), level);
+            return true;
+        }
+
+        if (book) {
+            EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
+            meta.addStoredEnchant(enchantment, level, true);
+            item.setItemMeta(meta);
+        } else {
+            item.addUnsafeEnchantment(enchantment, level);
+        }
+        return true;
+    }
+
+    private boolean remove(ItemStack item) {
+        if (registry.isCustom(index)) {
+            return plugin.getCustomEnchantments().remove(item, registry.getCustom(index));
+        }
+        Enchantment enchantment = registry.getEnchantment(index);
+        if (item.getType() == Material.ENCHANTED_BOOK) {
+            EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
+            if (meta == null || !meta.hasStoredEnchant(enchantment)) {
+                return false;
+            }
+            meta.removeStoredEnchant(enchantment);
+            item.setItemMeta(meta);
+            return true;
+        }
+        return item.removeEnchantment(enchantment) > 0;
+    }
+
+    private boolean clear(ItemStack item) {
+        if (item.getType() == Material.ENCHANTED_BOOK) {
+            EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
+            if (meta == null || !meta.hasStoredEnchants()) {
+                return false;
+            }
+            for (Enchantment enchantment : meta.getStoredEnchants().keySet()) {
+                meta.removeStoredEnchant(enchantment);
+            }
+            item.setItemMeta(meta);
+            return true;
+        }
+        Map<Enchantment, Integer> enchantments = item.getEnchantments();
+        if (enchantments.isEmpty()) {
+            return false;
+        }
+        item.removeEnchantments();
+        return true;
+    }
+
+    private String getConfigMessage(String key, String defaultMessage) {
+        return plugin.getConfig().getString("messages." + key, defaultMessage)
+                .replace("{prefix}", plugin.getConfig().getString("messages.prefix", "§6[§eELR§6] "));
+    }
+}
@@ -0,0 +1,198 @@
+package com.resistancecore.enchantlimitremover;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A level cap written as a formula, such as {@code vanilla * 3}, {@code vanilla + tierBonus} or
+ * {@code min(vanilla * tier, 50)}. Formulas are parsed once on reload and evaluated for every tier and
+ * enchantment while the {@link EnchantPolicy} tables are compiled, so they cost nothing at runtime.
+ * <p>
+ * Supported are numbers, {@code + - * /}, parentheses, {@code min(...)} and {@code max(...)} and the variables
+ * {@code vanilla} (the enchantment's vanilla max level), {@code tier}, {@code level} (the tier's general max
+ * level) and {@code tierBonus} (the group's tier-bonus, 0 without groups).
+ * <p>
+ * {@code tier} is the tier id from {@link LimitGroups}: 0 for the base tier, then with groups enabled the group's
+ * position in groups.definitions (1 for the first group), and with groups disabled the elr.level.N step
+ * (1 for elr.level.1, 2 for elr.level.5, up to 9 for elr.level.1000). It is a position, not a level;
+ * use {@code level} for the level itself.
+ * <p>
+ * Results are rounded down and at least 1, so a formula never disables an enchantment by accident;
+ * disabled-enchantments does that.
+ */
+public final class CapFormula {
+    private static final String[] VARIABLES = {"vanilla", "tier", "level", "tierbonus"};
+
+    private final String source;
+    private final Node root;
+
+    private CapFormula(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Parses a formula
+     * @throws IllegalArgumentException with a readable message if the formula is invalid
+     */
+    public static CapFormula parse(String source) {
+        Parser parser = new Parser(source);
+        Node root = parser.expression();
+        parser.skipSpaces();
+        if (parser.position < source.length()) {
+            throw parser.error("unexpected '" + source.charAt(parser.position) + "'");
+        }
+        return new CapFormula(source, root);
+    }
+
+    /**
+     * Evaluates the formula for one enchantment and tier
+     * @return The cap, at least 1
+     */
+    public int evaluate(int vanilla, int tier, int level, int tierBonus) {
+        double value = root.evaluate(new double[] {vanilla, tier, level, tierBonus});
+        if (Double.isNaN(value) || value < 1) {
+            return 1;
+        }
+        return value >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.floor(value);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private interface Node {
+        double evaluate(double[] variables);
+    }
+
+    /**
+     * Recursive descent over: expression = term (('+'|'-') term)*, term = factor (('*'|'/') factor)*,
+     * factor = number | variable | function '(' expression (',' expression)* ')' | '(' expression ')' | '-' factor
+     */
+    private static class Parser {
+        private final String source;
+        private int position;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        Node expression() {
+            Node left = term();
+            while (true) {
+                char operator = peek();
+                if (operator != '+' && operator != '-') {
+                    return left;
+                }
+                position++;
+                Node a = left;
+                Node b = term();
+                left = operator == '+' ? v -> a.evaluate(v) + b.evaluate(v) : v -> a.evaluate(v) - b.evaluate(v);
+            }
+        }
+
+        Node term() {
+            Node left = factor();
+            while (true) {
+                char operator = peek();
+                if (operator != '*' && operator != '/') {
+                    return left;
+                }
+                position++;
+                Node a = left;
+                Node b = factor();
+                left = operator == '*' ? v -> a.evaluate(v) * b.evaluate(v) : v -> a.evaluate(v) / b.evaluate(v);
+            }
+        }
+
+        Node factor() {
+            char c = peek();
+            if (c == '-') {
+                position++;
+                Node operand = factor();
+                return v -> -operand.evaluate(v);
+            }
+            if (c == '(') {
+                position++;
+                Node inner = expression();
+                expect(')');
+                return inner;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                int start = position;
+                while (position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+                    position++;
+                }
+                try {
+                    double value = Double.parseDouble(source.substring(start, position));
+                    return v -> value;
+                } catch (NumberFormatException e) {
+                    throw error("invalid number " + source.substring(start, position));
+                }
+            }
+            if (Character.isLetter(c)) {
+                int start = position;
+                while (position < source.length() && Character.isLetterOrDigit(source.charAt(position))) {
+                    position++;
+                }
+                String name = source.substring(start, position).toLowerCase(Locale.ROOT);
+                if (name.equals("min") || name.equals("max")) {
+                    return function(name.equals("min"));
+                }
+                for (int i = 0; i < VARIABLES.length; i++) {
+                    if (VARIABLES[i].equals(name)) {
+                        int variable = i;
+                        return v -> v[variable];
+                    }
+                }
+                throw error("unknown variable " + source.substring(start, position)
+                        + ", use vanilla, tier, level or tierBonus");
+            }
+            throw error(position < source.length() ? "unexpected '" + c + "'" : "unexpected end");
+        }
+
+        Node function(boolean min) {
+            expect('(');
+            List<Node> arguments = new ArrayList<>();
+            arguments.add(expression());
+            while (peek() == ',') {
+                position++;
+                arguments.add(expression());
+            }
+            expect(')');
+            Node[] nodes = arguments.toArray(new Node[0]);
+            return v -> {
+                double result = nodes[0].evaluate(v);
+                for (int i = 1; i < nodes.length; i++) {
+                    double value = nodes[i].evaluate(v);
+                    result = min ? Math.min(result, value) : Math.max(result, value);
+                }
+                return result;
+            };
+        }
+
+        void expect(char expected) {
+            if (peek() != expected) {
+                throw error("expected '" + expected + "'");
+            }
+            position++;
+        }
+
+        char peek() {
+            skipSpaces();
+            return position < source.length() ? source.charAt(position) : '\0';
+        }
+
+        void skipSpaces() {
+            while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid formula '" + source + "' at " + (position + 1) + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Applies changes to config.yml without /elrenchant reload, if hot-reload.enabled is set.
+ * A background thread watches the data folder; after a change it parses the file, checks it with
+ * {@link EnchantLimitRemover#findConfigErrors}, compiles the limit groups and policies and diffs them against
+ * the running ones. Invalid files are reported and ignored. A valid result is swapped in with one task on the
+ * main thread, which then re-checks only the players whose limits went down.
+ * <p>
+ * Changes to enchantment aliases or custom enchantments need a new registry, so they fall back to a full reload.
+ */
+public class ConfigWatcher implements Runnable {
+    private static final int MAX_LOGGED_CHANGES = 30;
+
+    private final EnchantLimitRemover plugin;
+    private WatchService watchService;
+    private Thread thread;
+
+    // Written on the main thread, read by the watcher thread
+    private volatile String applied;
+    private volatile LimitGroups appliedGroups;
+    private volatile List<String> worldNames = new ArrayList<>();
+    private volatile long debounce;
+
+    public ConfigWatcher(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts or stops the watcher according to the configuration and remembers the running configuration
+     */
+    public void load() {
+        shutdown();
+        snapshot();
+        debounce = Math.max(0, plugin.getConfig().getLong("hot-reload.debounce-ms", 500));
+        if (!plugin.getConfig().getBoolean("hot-reload.enabled", false)) {
+            return;
+        }
+        try {
+            watchService = plugin.getDataFolder().toPath().getFileSystem().newWatchService();
+            plugin.getDataFolder().toPath().register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not watch config.yml: " + e.getMessage());
+            return;
+        }
+        thread = new Thread(this, "EnchantLimitRemover config watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void snapshot() {
+        applied = plugin.getConfig().saveToString();
+        appliedGroups = plugin.getLimitGroups();
+        List<String> names = new ArrayList<>();
+        for (World world : plugin.getServer().getWorlds()) {
+            names.add(world.getName());
+        }
+        worldNames = names;
+    }
+
+    @Override
+    public void run() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= "config.yml".equals(String.valueOf(event.context()));
+                }
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+
+                // Editors write in several steps; wait for the file to settle
+                Thread.sleep(debounce);
+                WatchKey pending;
+                while ((pending = service.poll()) != null) {
+                    pending.pollEvents();
+                    pending.reset();
+                }
+                compile();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Parses, validates, compiles and diffs the file on the watcher thread
+     */
+    private void compile() {
+        Path file = plugin.getDataFolder().toPath().resolve("config.yml");
+        YamlConfiguration parsed = new YamlConfiguration();
+        String yaml;
+        try {
+            parsed.loadFromString(Files.readString(file, StandardCharsets.UTF_8));
+            yaml = parsed.saveToString();
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().warning("Ignoring changed config.yml, it could not be parsed: " + e.getMessage());
+            return;
+        }
+        String base = applied;
+        if (yaml.equals(base)) {
+            return;
+        }
+
+        List<String> errors = plugin.findConfigErrors(parsed);
+        if (!errors.isEmpty()) {
+            plugin.getLogger().warning("Ignoring changed config.yml, it has " + errors.size() + " errors:");
+            for (String error : errors) {
+                plugin.getLogger().warning("- " + error);
+            }
+            return;
+        }
+
+        YamlConfiguration running = new YamlConfiguration();
+        try {
+            running.loadFromString(base);
+        } catch (InvalidConfigurationException e) {
+            return;
+        }
+        if (!Objects.equals(section(parsed, "enchantment-aliases"), section(running, "enchantment-aliases"))
+                || !Objects.equals(section(parsed, "custom-enchantments"), section(running, "custom-enchantments"))) {
+            plugin.getLogger().info("config.yml changed enchantment aliases or custom enchantments, reloading fully");
+            plugin.getServer().getScheduler().runTask(plugin, () -> plugin.reloadConfig());
+            return;
+        }
+
+        long start = System.nanoTime();
+        LimitGroups groups = LimitGroups.compile(parsed, plugin.getLogger());
+        WorldPolicies compiled = plugin.compileWorldPolicies(parsed, groups);
+        Map<String, boolean[]> lowered = diff(plugin.getWorldPolicies(), appliedGroups, compiled, groups);
+        plugin.getLogger().info("Compiled changed config.yml in " + (System.nanoTime() - start) / 1_000_000L + " ms, applying");
+
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            // Skip if a reload happened in between; the next file change compiles against it
+            if (!base.equals(applied) || compiled.getGlobal().getRegistry() != plugin.getPolicy().getRegistry()) {
+                return;
+            }
+            plugin.applyWatchedConfig(yaml, groups, compiled);
+            snapshot();
+            resweep(lowered);
+        });
+    }
+
+    private static String section(YamlConfiguration config, String path) {
+        return config.isConfigurationSection(path) ? String.valueOf(config.getConfigurationSection(path).getValues(true)) : null;
+    }
+
+    /**
+     * Logs what changed per world and finds the tiers whose limits went down or that lost enchantments.
+     * Tiers are matched by name; if the tier list changed, every tier counts as lowered.
+     */
+    private Map<String, boolean[]> diff(WorldPolicies oldPolicies, LimitGroups oldGroups, WorldPolicies newPolicies, LimitGroups newGroups) {
+        boolean sameTiers = oldGroups.size() == newGroups.size();
+        for (int tier = 0; sameTiers && tier < newGroups.size(); tier++) {
+            sameTiers = oldGroups.getName(tier).equals(newGroups.getName(tier));
+        }
+
+        List<String> changes = new ArrayList<>();
+        Map<String, boolean[]> lowered = new HashMap<>();
+        Map<EnchantPolicy, boolean[]> byPolicy = new HashMap<>();
+        for (String worldName : worldNames) {
+            EnchantPolicy before = oldPolicies.get(worldName);
+            EnchantPolicy after = newPolicies.get(worldName);
+            boolean[] tiers = byPolicy.get(after);
+            if (tiers == null) {
+                tiers = new boolean[newGroups.size()];
+                if (!sameTiers) {
+                    Arrays.fill(tiers, true);
+                } else {
+                    diff(before, after, newGroups, tiers, changes);
+                }
+                byPolicy.put(after, tiers);
+            }
+            lowered.put(worldName, tiers);
+        }
+
+        if (!sameTiers) {
+            plugin.getLogger().info("Limit tiers changed, re-checking all players");
+        }
+        for (int i = 0; i < Math.min(changes.size(), MAX_LOGGED_CHANGES); i++) {
+            plugin.getLogger().info("- " + changes.get(i));
+        }
+        if (changes.size() > MAX_LOGGED_CHANGES) {
+            plugin.getLogger().info("... and " + (changes.size() - MAX_LOGGED_CHANGES) + " more changes");
+        }
+        return lowered;
+    }
+
+    private static void diff(EnchantPolicy before, EnchantPolicy after, LimitGroups groups, boolean[] lowered, List<String> changes) {
+        EnchantmentRegistry registry = after.getRegistry();
+        String profile = after.getName().equals("global") ? "" : " [" + after.getName() + "]";
+        boolean conflictsEnforced = after.isEnforceConflicts() && !before.isEnforceConflicts();
+        if (conflictsEnforced) {
+            changes.add("conflicts.enforce turned on" + profile);
+        }
+
+        Material[] materials = Material.values();
+        for (int index = 0; index < registry.size(); index++) {
+            boolean disabled = after.isDisabled(index) && !before.isDisabled(index);
+            if (disabled) {
+                changes.add(registry.getName(index) + " disabled" + profile);
+            } else if (before.isDisabled(index) && !after.isDisabled(index)) {
+                changes.add(registry.getName(index) + " enabled" + profile);
+            }
+            for (int tier = 0; tier < lowered.length; tier++) {
+                int oldCap = before.getMaxLevel(tier, index, null);
+                int newCap = after.getMaxLevel(tier, index, null);
+                if (newCap != oldCap) {
+                    changes.add(registry.getName(index) + " " + groups.getName(tier) + ": " + oldCap + " -> " + newCap
+                            + (newCap < oldCap ? " (lowered)" : " (raised)") + profile);
+                }
+                boolean down = disabled || conflictsEnforced || newCap < oldCap;
+                for (int m = 0; !down && m < materials.length; m++) {
+                    down = after.getMaxLevel(tier, index, materials[m]) < before.getMaxLevel(tier, index, materials[m]);
+                }
+                lowered[tier] |= down;
+            }
+        }
+    }
+
+    /**
+     * Queues inventory checks for the online players whose limits went down
+     */
+    private void resweep(Map<String, boolean[]> lowered) {
+        int queued = 0;
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            boolean[] tiers = lowered.get(player.getWorld().getName());
+            int tier = plugin.getTier(player);
+            if (tiers != null && tier < tiers.length && tiers[tier]) {
+                plugin.getSweepQueue().enqueue(player);
+                queued++;
+            }
+        }
+        plugin.getLogger().info("Applied changed config.yml, re-checking " + queued + " players");
+    }
+
+    public void shutdown() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watchService = null;
+        }
+    }
+}
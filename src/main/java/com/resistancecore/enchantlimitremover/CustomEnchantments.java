@@ -0,0 +1,208 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the custom enchantment definitions from the custom-enchantments section.
+ * Custom enchantments are not registered with the server; their level is stored
+ * in the item's PersistentDataContainer and shown as a lore line.
+ */
+public class CustomEnchantments {
+    private static final String LORE_PREFIX = "§7";
+
+    private final EnchantLimitRemover plugin;
+    private Map<String, Definition> definitions = Collections.emptyMap();
+    private boolean enabled;
+
+    public CustomEnchantments(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Reads the definitions from the current configuration
+     */
+    public void load() {
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("custom-enchantments");
+        Map<String, Definition> loaded = new LinkedHashMap<>();
+        enabled = section != null && section.getBoolean("enabled", false);
+
+        if (section != null) {
+            for (String id : section.getKeys(false)) {
+                ConfigurationSection entry = section.getConfigurationSection(id);
+                if (entry == null) {
+                    continue;
+                }
+                String key = id.toLowerCase();
+                loaded.put(key, new Definition(
+                        key,
+                        new NamespacedKey(plugin, key),
+                        entry.getString("name", id),
+                        Math.max(1, entry.getInt("max-level", 1)),
+                        entry.getStringList("conflicts"),
+                        entry));
+            }
+        }
+
+        definitions = loaded;
+        plugin.debugLog("Loaded " + loaded.size() + " custom enchantment definitions (enabled: " + enabled + ")");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets a definition by id, or null if it does not exist or custom enchantments are disabled
+     */
+    public Definition get(String id) {
+        if (!enabled || id == null) {
+            return null;
+        }
+        return definitions.get(id.toLowerCase());
+    }
+
+    public Collection<Definition> getDefinitions() {
+        return definitions.values();
+    }
+
+    /**
+     * Gets the level of a custom enchantment on an item, 0 if absent
+     */
+    public int getLevel(ItemStack item, String id) {
+        Definition definition = get(id);
+        if (definition == null || item == null || !item.hasItemMeta()) {
+            return 0;
+        }
+        return getLevel(item.getItemMeta(), definition);
+    }
+
+    /**
+     * Gets the level of a custom enchantment stored in item meta, 0 if absent
+     */
+    public int getLevel(ItemMeta meta, Definition definition) {
+        Integer level = meta.getPersistentDataContainer().get(definition.getKey(), PersistentDataType.INTEGER);
+        return level != null ? level : 0;
+    }
+
+    /**
+     * Applies a custom enchantment to an item, replacing any previous level
+     */
+    public void apply(ItemStack item, Definition definition, int level) {
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) {
+            return;
+        }
+        meta.getPersistentDataContainer().set(definition.getKey(), PersistentDataType.INTEGER, level);
+        List<String> lore = stripLore(meta, definition);
+        lore.add(0, definition.getLoreLine(level));
+        meta.setLore(lore);
+        item.setItemMeta(meta);
+    }
+
+    /**
+     * Removes a custom enchantment from an item
+     * @return true if the item had the enchantment
+     */
+    public boolean remove(ItemStack item, Definition definition) {
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null || !removeFrom(meta, definition)) {
+            return false;
+        }
+        item.setItemMeta(meta);
+        return true;
+    }
+
+    /**
+     * Removes a custom enchantment from item meta without applying the meta to an item
+     * @return true if the meta had the enchantment
+     */
+    public boolean removeFrom(ItemMeta meta, Definition definition) {
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        if (!container.has(definition.getKey(), PersistentDataType.INTEGER)) {
+            return false;
+        }
+        container.remove(definition.getKey());
+        List<String> lore = stripLore(meta, definition);
+        meta.setLore(lore.isEmpty() ? null : lore);
+        return true;
+    }
+
+    private List<String> stripLore(ItemMeta meta, Definition definition) {
+        List<String> lore = meta.hasLore() ? new ArrayList<>(meta.getLore()) : new ArrayList<>();
+        String prefix = LORE_PREFIX + definition.getName() + " ";
+        lore.removeIf(line -> line.startsWith(prefix));
+        return lore;
+    }
+
+    static String toRoman(int level) {
+        if (level <= 0 || level > 10) {
+            return String.valueOf(level);
+        }
+        String[] numerals = {"I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X"};
+        return numerals[level - 1];
+    }
+
+    /**
+     * A single custom enchantment definition
+     */
+    public static class Definition {
+        private final String id;
+        private final NamespacedKey key;
+        private final String name;
+        private final int maxLevel;
+        private final List<String> conflicts;
+        private final ConfigurationSection section;
+
+        Definition(String id, NamespacedKey key, String name, int maxLevel, List<String> conflicts, ConfigurationSection section) {
+            this.id = id;
+            this.key = key;
+            this.name = name;
+            this.maxLevel = maxLevel;
+            this.conflicts = conflicts;
+            this.section = section;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public NamespacedKey getKey() {
+            return key;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMaxLevel() {
+            return maxLevel;
+        }
+
+        public List<String> getConflicts() {
+            return conflicts;
+        }
+
+        /**
+         * Gets the raw configuration section for enchantment-specific settings
+         */
+        public ConfigurationSection getSection() {
+            return section;
+        }
+
+        String getLoreLine(int level) {
+            return LORE_PREFIX + name + " " + toRoman(level);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulates item drops merged by similarity into as few full stacks as possible.
+ */
+public class DropBuffer {
+    private final List<ItemStack> stacks = new ArrayList<>();
+
+    /**
+     * Merges a drop into the buffer, filling existing similar stacks first.
+     * The given stack is not modified.
+     */
+    public void add(ItemStack drop) {
+        if (drop == null || drop.getType().isAir()) {
+            return;
+        }
+
+        int remaining = drop.getAmount();
+        for (ItemStack stack : stacks) {
+            if (remaining <= 0) {
+                return;
+            }
+            int space = stack.getMaxStackSize() - stack.getAmount();
+            if (space > 0 && stack.isSimilar(drop)) {
+                int moved = Math.min(space, remaining);
+                stack.setAmount(stack.getAmount() + moved);
+                remaining -= moved;
+            }
+        }
+        while (remaining > 0) {
+            ItemStack stack = drop.clone();
+            int amount = Math.min(remaining, stack.getMaxStackSize());
+            stack.setAmount(amount);
+            stacks.add(stack);
+            remaining -= amount;
+        }
+    }
+
+    public void addAll(DropBuffer other) {
+        for (ItemStack stack : other.stacks) {
+            add(stack);
+        }
+    }
+
+    public boolean isEmpty() {
+        return stacks.isEmpty();
+    }
+
+    public int size() {
+        return stacks.size();
+    }
+
+    public List<ItemStack> getStacks() {
+        return stacks;
+    }
+
+    public ItemStack[] toArray() {
+        return stacks.toArray(new ItemStack[0]);
+    }
+}
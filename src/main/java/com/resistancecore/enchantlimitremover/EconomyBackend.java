@@ -0,0 +1,31 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Where enchanting costs are charged; see {@link EnchantEconomy} for how the backend is chosen.
+ * Main thread only.
+ */
+public interface EconomyBackend {
+
+    /**
+     * Gets a short name for logs
+     */
+    String getName();
+
+    /**
+     * Gets how much the player can pay, in the backend's unit
+     */
+    double getBalance(Player player);
+
+    /**
+     * Takes an amount from the player
+     * @return false, without taking anything, if the player cannot pay
+     */
+    boolean withdraw(Player player, double amount);
+
+    /**
+     * Formats an amount for messages
+     */
+    String format(double amount);
+}
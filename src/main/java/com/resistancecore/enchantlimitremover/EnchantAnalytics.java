@@ -0,0 +1,308 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts the enchantment levels the plugin sees created or has to correct, and the fixes it performs.
+ * Levels are recorded once per enchanting table result and once per enchantment the enforcer removes or
+ * lowers (with the level it had before); items that pass a check are not counted, so repeated clicks and
+ * sweeps over the same items do not inflate the numbers.
+ * All counters are flat primitive arrays, so recording is an index computation and an increment. Main thread only.
+ * <p>
+ * Levels are bucketed (1-10 exact, then wider ranges) and counted per enchantment and material. Only materials
+ * that were seen get counters: the first observation on a material gives it a row of enchantments times buckets,
+ * so the histogram grows with the handful of enchantable items in use rather than with every material.
+ * Every flush appends the counts gained since the previous flush to analytics.log.
+ */
+public class EnchantAnalytics implements Runnable {
+
+    /**
+     * Kinds of fixes the enforcement paths perform
+     */
+    public enum Fix {
+        DISABLED_REMOVED, LEVEL_REDUCED, CONFLICT_REMOVED
+    }
+
+    /**
+     * Where an item check came from
+     */
+    public enum Source {
+        ENCHANT_TABLE, ANVIL, SMITHING, GRINDSTONE, CRAFTING, INVENTORY_CLICK, PICKUP, JOIN, SWEEP, ENTITY, LOOT, FISHING, TRADE
+    }
+
+    private static final String[] BUCKETS = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10",
+            "11-20", "21-50", "51-100", "101-255", "256-1000", "1001+"};
+    private static final Material[] MATERIALS = Material.values();
+
+    private final EnchantLimitRemover plugin;
+    private boolean enabled;
+    private EnchantmentRegistry registry;
+    private int rowSize;
+    private final int[] rowByMaterial = new int[MATERIALS.length];
+    private Material[] rowMaterials = new Material[0];
+    private int rows;
+    private int[] levels = new int[0];
+    private int[] levelsFlushed = new int[0];
+    private int[] fixes = new int[0];
+    private int[] fixesFlushed = new int[0];
+    private final long[] sources = new long[Source.values().length];
+    private final long[] sourcesFlushed = new long[Source.values().length];
+    private BukkitTask flushTask;
+
+    public EnchantAnalytics(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    private static int bucket(int level) {
+        if (level <= 10) {
+            return Math.max(level, 1) - 1;
+        }
+        if (level <= 20) {
+            return 10;
+        }
+        if (level <= 50) {
+            return 11;
+        }
+        if (level <= 100) {
+            return 12;
+        }
+        if (level <= 255) {
+            return 13;
+        }
+        return level <= 1000 ? 14 : 15;
+    }
+
+    /**
+     * Sizes the counters for a newly compiled registry and restarts the flush task.
+     * Pending counts of the previous registry are flushed first, since indices may change.
+     */
+    public void load(EnchantmentRegistry registry) {
+        if (this.registry != null) {
+            flush();
+        }
+        this.enabled = plugin.getConfig().getBoolean("analytics.enabled", true);
+
+        // Counts since startup survive reloads as long as every index still means the same enchantment
+        int size = enabled ? registry.size() : 0;
+        if (rowSize != size * BUCKETS.length || !sameIndices(this.registry, registry)) {
+            rowSize = size * BUCKETS.length;
+            Arrays.fill(rowByMaterial, 0);
+            rowMaterials = new Material[0];
+            rows = 0;
+            levels = new int[0];
+            levelsFlushed = new int[0];
+            fixes = new int[size * Fix.values().length];
+            fixesFlushed = new int[fixes.length];
+        }
+        this.registry = registry;
+
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        long interval = plugin.getConfig().getLong("analytics.flush-interval-minutes", 10) * 60L * 20L;
+        if (enabled && interval > 0) {
+            flushTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this, interval, interval);
+        }
+    }
+
+    private static boolean sameIndices(EnchantmentRegistry previous, EnchantmentRegistry current) {
+        if (previous == null || previous.size() != current.size()) {
+            return false;
+        }
+        for (int index = 0; index < current.size(); index++) {
+            if (!previous.getName(index).equals(current.getName(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the level of an enchantment that was just created or is about to be corrected
+     */
+    public void observe(int index, int level, Material type) {
+        if (!enabled || index < 0) {
+            return;
+        }
+        int row = rowByMaterial[type.ordinal()];
+        if (row == 0) {
+            row = addRow(type);
+        }
+        levels[(row - 1) * rowSize + index * BUCKETS.length + bucket(level)]++;
+    }
+
+    /**
+     * Gives a material its row of level counters, growing the arrays by doubling
+     * @return The row number plus one
+     */
+    private int addRow(Material type) {
+        if (rows == rowMaterials.length) {
+            int capacity = Math.max(8, rows * 2);
+            rowMaterials = Arrays.copyOf(rowMaterials, capacity);
+            levels = Arrays.copyOf(levels, capacity * rowSize);
+            levelsFlushed = Arrays.copyOf(levelsFlushed, levels.length);
+        }
+        rowMaterials[rows++] = type;
+        rowByMaterial[type.ordinal()] = rows;
+        return rows;
+    }
+
+    /**
+     * Records a fix performed on an enchantment
+     */
+    public void fix(Fix fix, int index) {
+        if (!enabled || index < 0) {
+            return;
+        }
+        fixes[fix.ordinal() * registry.size() + index]++;
+    }
+
+    /**
+     * Records an item or inventory check
+     */
+    public void count(Source source) {
+        if (enabled) {
+            sources[source.ordinal()]++;
+        }
+    }
+
+    /**
+     * Appends the counts gained since the last flush to the log.
+     * The lines are built on the main thread; the file is written asynchronously.
+     */
+    @Override
+    public void run() {
+        flush();
+    }
+
+    public void flush() {
+        if (!enabled || registry == null) {
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000L;
+        StringBuilder out = new StringBuilder();
+        for (int cell = 0; cell < rows * rowSize; cell++) {
+            int delta = levels[cell] - levelsFlushed[cell];
+            if (delta != 0) {
+                out.append(now).append(" level ").append(describeLevelCell(cell)).append(' ').append(delta).append('\n');
+                levelsFlushed[cell] = levels[cell];
+            }
+        }
+        for (int cell = 0; cell < fixes.length; cell++) {
+            int delta = fixes[cell] - fixesFlushed[cell];
+            if (delta != 0) {
+                out.append(now).append(" fix ").append(describeFixCell(cell)).append(' ').append(delta).append('\n');
+                fixesFlushed[cell] = fixes[cell];
+            }
+        }
+        for (Source source : Source.values()) {
+            long delta = sources[source.ordinal()] - sourcesFlushed[source.ordinal()];
+            if (delta != 0) {
+                out.append(now).append(" check ").append(source.name().toLowerCase()).append(' ').append(delta).append('\n');
+                sourcesFlushed[source.ordinal()] = sources[source.ordinal()];
+            }
+        }
+        if (out.length() == 0) {
+            return;
+        }
+
+        byte[] bytes = out.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = plugin.getDataFolder().toPath().resolve("analytics.log");
+        Runnable write = () -> {
+            try {
+                Files.write(file, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not write analytics: " + e.getMessage());
+            }
+        };
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, write);
+        } else {
+            write.run();
+        }
+    }
+
+    private String describeLevelCell(int cell) {
+        int bucket = cell % BUCKETS.length;
+        int index = (cell % rowSize) / BUCKETS.length;
+        Material material = rowMaterials[cell / rowSize];
+        return registry.getName(index) + ' ' + material.name().toLowerCase() + ' ' + BUCKETS[bucket];
+    }
+
+    private String describeFixCell(int cell) {
+        return Fix.values()[cell / registry.size()].name().toLowerCase() + ' ' + registry.getName(cell % registry.size());
+    }
+
+    /**
+     * Gets the most frequent level observations since startup, formatted for chat
+     */
+    public List<String> topLevels(int limit) {
+        List<String> lines = new ArrayList<>();
+        for (int cell : top(levels, limit)) {
+            lines.add(describeLevelCell(cell) + ": " + levels[cell]);
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the most frequent fixes since startup, formatted for chat
+     */
+    public List<String> topFixes(int limit) {
+        List<String> lines = new ArrayList<>();
+        for (int cell : top(fixes, limit)) {
+            lines.add(describeFixCell(cell) + ": " + fixes[cell]);
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the number of checks per source since startup
+     */
+    public long getChecks(Source source) {
+        return sources[source.ordinal()];
+    }
+
+    /**
+     * Selects the positions of the largest non-zero counts, largest first
+     */
+    private static int[] top(int[] counts, int limit) {
+        int[] best = new int[limit];
+        int size = 0;
+        for (int cell = 0; cell < counts.length; cell++) {
+            int count = counts[cell];
+            if (count == 0 || (size == limit && count <= counts[best[size - 1]])) {
+                continue;
+            }
+            int position = size < limit ? size++ : size - 1;
+            while (position > 0 && counts[best[position - 1]] < count) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = cell;
+        }
+        return Arrays.copyOf(best, size);
+    }
+
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+    }
+}
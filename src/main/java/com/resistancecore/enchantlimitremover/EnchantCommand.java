@@ -5,18 +5,29 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.enchantments.Enchantment;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 
-import java.util.List;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EnchantCommand implements CommandExecutor {
     private final EnchantLimitRemover plugin;
     private final Map<String, Long> cooldowns = new HashMap<>();
+    private boolean migrationRunning;
+    private InventoryAudit audit;
 
     public EnchantCommand(EnchantLimitRemover plugin) {
         this.plugin = plugin;
@@ -24,6 +35,46 @@ public class EnchantCommand implements CommandExecutor {
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        // Migration works on files only, so it can also be started from the console
+        if (args.length > 0 && args[0].equalsIgnoreCase("migrate")) {
+            if (!sender.hasPermission("elr.command.migrate")) {
+                sender.sendMessage(getConfigMessage("no-permission", "§cYou don't have permission to use this command!"));
+                return true;
+            }
+            handleMigrate(sender, args.length > 1 && args[1].equalsIgnoreCase("dry-run"));
+            return true;
+        }
+
+        // Overrides target another player, so staff can also grant them from the console
+        if (args.length > 0 && args[0].equalsIgnoreCase("override")) {
+            if (!sender.hasPermission("elr.command.override")) {
+                sender.sendMessage(getConfigMessage("no-permission", "§cYou don't have permission to use this command!"));
+                return true;
+            }
+            handleOverride(sender, args);
+            return true;
+        }
+
+        // With a target, add, remove and clear act on other players' items, so they also work from the console
+        if (args.length > 0 && targetPosition(args) > 0) {
+            if (!sender.hasPermission("elr.command." + args[0].toLowerCase())) {
+                sender.sendMessage(getConfigMessage("no-permission", "§cYou don't have permission to use this command!"));
+                return true;
+            }
+            handleTargeted(sender, args, targetPosition(args));
+            return true;
+        }
+
+        // Balances are looked up and adjusted by name, so this also works from the console
+        if (args.length > 0 && args[0].equalsIgnoreCase("balance")) {
+            if (!sender.hasPermission("elr.command.economy")) {
+                sender.sendMessage(getConfigMessage("no-permission", "§cYou don't have permission to use this command!"));
+                return true;
+            }
+            handleBalance(sender, args);
+            return true;
+        }
+
         if (!(sender instanceof Player)) {
             sender.sendMessage("§cThis command can only be used by players!");
             return true;
@@ -59,7 +110,7 @@ public class EnchantCommand implements CommandExecutor {
                 break;
 
             case "list":
-                handleListEnchants(player);
+                handleListEnchants(player, args.length > 1 ? args[1] : "1");
                 break;
 
             case "reload":
@@ -74,6 +125,14 @@ public class EnchantCommand implements CommandExecutor {
                 handleClearEnchants(player);
                 break;
 
+            case "analytics":
+                handleAnalytics(player);
+                break;
+
+            case "audit":
+                handleAudit(player, args.length > 1 ? args[1] : "audit-policy.yml");
+                break;
+
             default:
                 sendHelpMessage(player);
                 break;
@@ -87,9 +146,15 @@ public class EnchantCommand implements CommandExecutor {
         player.sendMessage("§e/elrenchant add <enchant> <level> §7- Add enchantment to item");
         player.sendMessage("§e/elrenchant remove <enchant> §7- Remove enchantment from item");
         player.sendMessage("§e/elrenchant clear §7- Remove all enchantments from item");
-        player.sendMessage("§e/elrenchant list §7- List all available enchantments");
+        player.sendMessage("§e/elrenchant add|remove|clear ... <player|@selector> [slot|inventory] §7- Change other players' items");
+        player.sendMessage("§e/elrenchant list [page] §7- List all available enchantments");
         player.sendMessage("§e/elrenchant info §7- Show item enchantment info");
         player.sendMessage("§e/elrenchant reload §7- Reload plugin configuration");
+        player.sendMessage("§e/elrenchant migrate [dry-run] §7- Fix offline player data");
+        player.sendMessage("§e/elrenchant analytics §7- Show enchantment level and fix statistics");
+        player.sendMessage("§e/elrenchant audit [file] §7- Check online inventories against a candidate config");
+        player.sendMessage("§e/elrenchant override <player> [enchant|*] [level] [duration] §7- Grant a player a personal limit");
+        player.sendMessage("§e/elrenchant balance [player] [give|take|set <amount>] §7- Show or adjust enchanting balances");
         player.sendMessage("§6═══════════════════════════════════════════");
     }
     
@@ -125,59 +190,33 @@ public class EnchantCommand implements CommandExecutor {
         return true;
     }
 
-    /**
-     * Gets the maximum enchantment level for a player considering all limits
-     */
-    private int getMaxLevelForPlayer(Player player, Enchantment enchantment, Material itemType) {
-        // Start with base config level
-        int maxLevel = plugin.getConfig().getInt("max-enchant-level", 10);
-        
-        plugin.debugLog("Base max level from config: " + maxLevel);
-        
-        // Apply permission-based level (if higher)
-        if (plugin.getConfig().getBoolean("use-permission-levels", true)) {
-            int permissionLevel = plugin.getCachedPermissionLevel(player);
-            if (permissionLevel > 0) {
-                maxLevel = Math.max(maxLevel, permissionLevel);
-                plugin.debugLog("Applied permission level " + permissionLevel + ", new max: " + maxLevel);
-            }
-        }
-        
-        // Apply item-specific limits (if lower)
-        if (plugin.getConfig().getBoolean("item-specific-limits.enabled", false) && enchantment != null && itemType != null) {
-            String itemKey = itemType.name();
-            String enchantKey = enchantment.getKey().getKey();
-            String configPath = "item-specific-limits.items." + itemKey + "." + enchantKey;
-            
-            if (plugin.getConfig().contains(configPath)) {
-                int itemSpecificLimit = plugin.getConfig().getInt(configPath, maxLevel);
-                maxLevel = Math.min(maxLevel, itemSpecificLimit);
-                plugin.debugLog("Applied item-specific limit for " + itemKey + "." + enchantKey + ": " + itemSpecificLimit + ", new max: " + maxLevel);
-            }
-        }
-        
-        // Apply absolute maximum limit (security)
-        int absoluteMax = plugin.getConfig().getInt("security.absolute-max-level", 1000);
-        maxLevel = Math.min(maxLevel, absoluteMax);
-        
-        plugin.debugLog("Final max level for " + player.getName() + ": " + maxLevel);
-        
-        return maxLevel;
-    }
-
     private void handleAddEnchant(Player player, String enchantName, String levelStr) {
         if (!checkCooldown(player)) {
             return;
         }
 
+        ExploitDetector exploitDetector = plugin.getExploitDetector();
+        if (exploitDetector.isBlocked(player)) {
+            player.sendMessage(getConfigMessage("exploit-blocked-action", "§cYou are temporarily blocked from this action!"));
+            return;
+        }
+        exploitDetector.record(player, ExploitDetector.Check.ADD_COMMANDS);
+
         ItemStack item = player.getInventory().getItemInMainHand();
         if (item == null || item.getType().isAir()) {
             player.sendMessage(getConfigMessage("no-item", "§cYou must hold an item in your main hand!"));
             return;
         }
 
+        EnchantmentRegistry registry = plugin.getPolicy().getRegistry();
+        int enchantIndex = registry.indexOf(enchantName);
+        if (enchantIndex >= 0 && registry.isCustom(enchantIndex)) {
+            handleAddCustomEnchant(player, item, enchantIndex, levelStr);
+            return;
+        }
+
         try {
-            Enchantment enchantment = Enchantment.getByKey(NamespacedKey.minecraft(enchantName.toLowerCase()));
+            Enchantment enchantment = enchantIndex >= 0 ? registry.getEnchantment(enchantIndex) : null;
             if (enchantment == null) {
                 player.sendMessage(getConfigMessage("invalid-enchant", "§cInvalid enchantment name! Use §e/elrenchant list §cto see available enchantments."));
                 return;
@@ -190,8 +229,9 @@ public class EnchantCommand implements CommandExecutor {
             }
 
             // Check if enchantment is disabled
-            List<String> disabledEnchants = plugin.getConfig().getStringList("disabled-enchantments");
-            if (disabledEnchants.contains(enchantment.getKey().getKey().toLowerCase())) {
+            EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+            int index = enchantIndex;
+            if (policy.isDisabled(index)) {
                 // Check bypass permission
                 if (!player.hasPermission("elr.bypass.disabled")) {
                     player.sendMessage(getConfigMessage("enchant-disabled", "§cThis enchantment is disabled!"));
@@ -200,8 +240,20 @@ public class EnchantCommand implements CommandExecutor {
                 plugin.debugLog("Player " + player.getName() + " bypassed disabled enchantment: " + enchantment.getKey().getKey());
             }
 
+            // Check conflicts with enchantments already on the item
+            if (policy.isEnforceConflicts() && index >= 0 && !player.hasPermission("elr.bypass.conflicts")) {
+                String conflict = findConflict(policy.getRegistry(), plugin.getCustomEnchantments(), index, item);
+                if (conflict != null) {
+                    String message = getConfigMessage("enchant-conflict", "§cThe enchantment §e{enchantment} §cconflicts with §e{conflict} §con this item!")
+                            .replace("{enchantment}", enchantment.getKey().getKey())
+                            .replace("{conflict}", conflict);
+                    player.sendMessage(message);
+                    return;
+                }
+            }
+
             // Get max level for this player, enchantment, and item
-            int maxLevel = getMaxLevelForPlayer(player, enchantment, item.getType());
+            int maxLevel = plugin.getMaxLevel(player, enchantment, item.getType());
             if (level > maxLevel) {
                 String message = getConfigMessage("level-too-high", "§cMaximum enchantment level for you is {max-level}!")
                         .replace("{max-level}", String.valueOf(maxLevel));
@@ -209,6 +261,10 @@ public class EnchantCommand implements CommandExecutor {
                 return;
             }
 
+            if (!plugin.getEconomy().charge(player, level)) {
+                return;
+            }
+
             // Handle enchanted books differently
             if (item.getType() == Material.ENCHANTED_BOOK) {
                 EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
@@ -235,6 +291,93 @@ public class EnchantCommand implements CommandExecutor {
         }
     }
 
+    /**
+     * Finds an enchantment on the item, vanilla or custom, that conflicts with the given one
+     * @return the conflicting enchantment name, or null if there is none
+     */
+    static String findConflict(EnchantmentRegistry registry, CustomEnchantments customEnchantments, int index, ItemStack item) {
+        Map<Enchantment, Integer> existing = item.getType() == Material.ENCHANTED_BOOK
+                ? ((EnchantmentStorageMeta) item.getItemMeta()).getStoredEnchants()
+                : item.getEnchantments();
+        for (Enchantment other : existing.keySet()) {
+            int otherIndex = registry.indexOf(other);
+            if (otherIndex >= 0 && registry.conflicts(index, otherIndex)) {
+                return other.getKey().getKey();
+            }
+        }
+        if (registry.hasCustom() && item.hasItemMeta()) {
+            ItemMeta meta = item.getItemMeta();
+            for (int otherIndex = registry.serverCount(); otherIndex < registry.size(); otherIndex++) {
+                if (registry.conflicts(index, otherIndex) && customEnchantments.getLevel(meta, registry.getCustom(otherIndex)) > 0) {
+                    return registry.getName(otherIndex);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a custom enchantment after the same disabled, conflict and limit checks as vanilla enchantments
+     */
+    private void handleAddCustomEnchant(Player player, ItemStack item, int index, String levelStr) {
+        EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+        CustomEnchantments.Definition custom = policy.getRegistry().getCustom(index);
+        int level;
+        try {
+            level = Integer.parseInt(levelStr);
+        } catch (NumberFormatException e) {
+            player.sendMessage(getConfigMessage("invalid-level", "§cInvalid level number! Please enter a valid integer."));
+            return;
+        }
+        if (level <= 0) {
+            player.sendMessage(getConfigMessage("invalid-level", "§cEnchantment level must be greater than 0!"));
+            return;
+        }
+
+        if (policy.isDisabled(index)) {
+            if (!player.hasPermission("elr.bypass.disabled")) {
+                player.sendMessage(getConfigMessage("enchant-disabled", "§cThis enchantment is disabled!"));
+                return;
+            }
+            plugin.debugLog("Player " + player.getName() + " bypassed disabled enchantment: " + custom.getId());
+        }
+
+        if (policy.isEnforceConflicts() && !player.hasPermission("elr.bypass.conflicts")) {
+            String conflict = findConflict(policy.getRegistry(), plugin.getCustomEnchantments(), index, item);
+            if (conflict != null) {
+                String message = getConfigMessage("enchant-conflict", "§cThe enchantment §e{enchantment} §cconflicts with §e{conflict} §con this item!")
+                        .replace("{enchantment}", custom.getId())
+                        .replace("{conflict}", conflict);
+                player.sendMessage(message);
+                return;
+            }
+        }
+
+        // Custom enchantments are capped by their own max-level as well as the player's limits
+        int maxLevel = plugin.getMaxLevel(player, index, item.getType());
+        if (level > maxLevel) {
+            String message = getConfigMessage("level-too-high", "§cMaximum enchantment level for you is {max-level}!")
+                    .replace("{max-level}", String.valueOf(maxLevel));
+            player.sendMessage(message);
+            return;
+        }
+
+        if (!plugin.getEconomy().charge(player, level)) {
+            return;
+        }
+
+        plugin.getCustomEnchantments().apply(item, custom, level);
+
+        if (plugin.getConfig().getBoolean("show-messages", true)) {
+            String message = getConfigMessage("enchant-added", "§aSuccessfully added §e{enchantment} {level} §ato item!")
+                    .replace("{enchantment}", custom.getId())
+                    .replace("{level}", String.valueOf(level));
+            player.sendMessage(message);
+        }
+
+        plugin.debugLog("Player " + player.getName() + " added custom " + custom.getId() + " " + level + " to " + item.getType());
+    }
+
     private void handleRemoveEnchant(Player player, String enchantName) {
         ItemStack item = player.getInventory().getItemInMainHand();
         if (item == null || item.getType().isAir()) {
@@ -242,7 +385,21 @@ public class EnchantCommand implements CommandExecutor {
             return;
         }
 
-        Enchantment enchantment = Enchantment.getByKey(NamespacedKey.minecraft(enchantName.toLowerCase()));
+        EnchantmentRegistry registry = plugin.getPolicy().getRegistry();
+        int enchantIndex = registry.indexOf(enchantName);
+        if (enchantIndex >= 0 && registry.isCustom(enchantIndex)) {
+            CustomEnchantments.Definition custom = registry.getCustom(enchantIndex);
+            if (plugin.getCustomEnchantments().remove(item, custom)) {
+                String message = getConfigMessage("enchant-removed", "§aSuccessfully removed §e{enchantment} §afrom item!")
+                        .replace("{enchantment}", custom.getId());
+                player.sendMessage(message);
+            } else {
+                player.sendMessage("§cThis item doesn't have " + custom.getId() + "!");
+            }
+            return;
+        }
+
+        Enchantment enchantment = enchantIndex >= 0 ? registry.getEnchantment(enchantIndex) : null;
         if (enchantment == null) {
             player.sendMessage(getConfigMessage("invalid-enchant", "§cInvalid enchantment name! Use §e/elrenchant list §cto see available enchantments."));
             return;
@@ -305,30 +462,18 @@ public class EnchantCommand implements CommandExecutor {
         plugin.debugLog("Player " + player.getName() + " cleared all enchantments from " + item.getType());
     }
 
-    private void handleListEnchants(Player player) {
-        player.sendMessage("§6═══════ Available Enchantments ═══════");
-        player.sendMessage("§7Format: §eenchantment_name §7(Vanilla Max: §aX§7, Your Max: §bY§7)");
-        player.sendMessage("");
-        
-        List<String> disabledEnchants = plugin.getConfig().getStringList("disabled-enchantments");
-        int playerMaxLevel = getMaxLevelForPlayer(player, null, null);
-        
-        for (Enchantment enchant : Enchantment.values()) {
-            String enchantName = enchant.getKey().getKey();
-            int vanillaMax = enchant.getMaxLevel();
-            
-            // Check if enchantment is disabled
-            if (disabledEnchants.contains(enchantName.toLowerCase())) {
-                if (player.hasPermission("elr.bypass.disabled")) {
-                    player.sendMessage("§e- " + enchantName + " §7(Vanilla: §a" + vanillaMax + "§7, Your Max: §b" + playerMaxLevel + "§7) §c[DISABLED - BYPASSED]");
-                } else {
-                    player.sendMessage("§c- " + enchantName + " §7(§cDISABLED§7)");
-                }
-            } else {
-                player.sendMessage("§e- " + enchantName + " §7(Vanilla: §a" + vanillaMax + "§7, Your Max: §b" + playerMaxLevel + "§7)");
-            }
+    private void handleListEnchants(Player player, String pageStr) {
+        int page;
+        try {
+            page = Integer.parseInt(pageStr);
+        } catch (NumberFormatException e) {
+            player.sendMessage("§cUsage: /elrenchant list [page]");
+            return;
         }
-        player.sendMessage("§6══════════════════════════════════════");
+        
+        // Pages are rendered once per policy, tier and bypass permission and sent as one message each
+        net.kyori.adventure.text.Component[] pages = plugin.getListPages().get(player);
+        player.sendMessage(pages[Math.max(1, Math.min(page, pages.length)) - 1]);
     }
 
     private void handleInfo(Player player) {
@@ -338,36 +483,35 @@ public class EnchantCommand implements CommandExecutor {
             return;
         }
 
-        player.sendMessage("§6═══════ Item Enchantment Info ═══════");
-        player.sendMessage("§eItem: §f" + item.getType().name());
+        StringBuilder lines = new StringBuilder("§6═══════ Item Enchantment Info ═══════");
+        lines.append("\n§eItem: §f").append(item.getType().name());
         
-        if (item.getType() == Material.ENCHANTED_BOOK) {
-            EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
-            if (meta != null && meta.hasStoredEnchants()) {
-                player.sendMessage("§eStored Enchantments:");
-                for (Map.Entry<Enchantment, Integer> entry : meta.getStoredEnchants().entrySet()) {
-                    int maxForThis = getMaxLevelForPlayer(player, entry.getKey(), item.getType());
-                    player.sendMessage("§a- " + entry.getKey().getKey().getKey() + " " + entry.getValue() + " §7(Max: §b" + maxForThis + "§7)");
-                }
-            } else {
-                player.sendMessage("§7No stored enchantments");
-            }
+        boolean book = item.getType() == Material.ENCHANTED_BOOK;
+        Map<Enchantment, Integer> enchants = book && item.getItemMeta() instanceof EnchantmentStorageMeta
+                ? ((EnchantmentStorageMeta) item.getItemMeta()).getStoredEnchants() : item.getEnchantments();
+        if (enchants.isEmpty()) {
+            lines.append(book ? "\n§7No stored enchantments" : "\n§7No enchantments");
         } else {
-            if (item.getEnchantments().isEmpty()) {
-                player.sendMessage("§7No enchantments");
-            } else {
-                player.sendMessage("§eEnchantments:");
-                for (Map.Entry<Enchantment, Integer> entry : item.getEnchantments().entrySet()) {
-                    int maxForThis = getMaxLevelForPlayer(player, entry.getKey(), item.getType());
-                    player.sendMessage("§a- " + entry.getKey().getKey().getKey() + " " + entry.getValue() + " §7(Max: §b" + maxForThis + "§7)");
-                }
+            // One policy and tier lookup for all enchantments on the item
+            Enchantment[] keys = enchants.keySet().toArray(new Enchantment[0]);
+            int[] caps = new int[keys.length];
+            plugin.getMaxLevels(player, item.getType(), keys, caps);
+            lines.append(book ? "\n§eStored Enchantments:" : "\n§eEnchantments:");
+            for (int i = 0; i < keys.length; i++) {
+                lines.append("\n§a- ").append(keys[i].getKey().getKey()).append(' ').append(enchants.get(keys[i]))
+                        .append(" §7(Max: §b").append(caps[i]).append("§7)");
             }
         }
         
-        player.sendMessage("§eYour base max level: §a" + getMaxLevelForPlayer(player, null, null));
-        player.sendMessage("§ePermission level: §a" + plugin.getCachedPermissionLevel(player));
-        player.sendMessage("§eAbsolute max level: §a" + plugin.getConfig().getInt("security.absolute-max-level", 1000));
-        player.sendMessage("§6═══════════════════════════════════════");
+        int tier = plugin.getTier(player);
+        lines.append("\n§eYour base max level: §a").append(plugin.getPolicy(player.getWorld()).getMaxLevel(tier, -1, null));
+        lines.append("\n§ePermission level: §a").append(plugin.getCachedPermissionLevel(player));
+        if (plugin.getLimitGroups().isEnabled()) {
+            lines.append("\n§eLimit group: §a").append(plugin.getLimitGroups().getName(tier));
+        }
+        lines.append("\n§eAbsolute max level: §a").append(plugin.getConfig().getInt("security.absolute-max-level", 1000));
+        lines.append("\n§6═══════════════════════════════════════");
+        player.sendMessage(lines.toString());
     }
 
     private void handleReload(Player player) {
@@ -384,4 +528,350 @@ public class EnchantCommand implements CommandExecutor {
             plugin.getLogger().severe("Error reloading config: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private void handleOverride(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage("§cUsage: /elrenchant override <player> [enchant|*] [level] [duration]");
+            return;
+        }
+        Player target = plugin.getServer().getPlayerExact(args[1]);
+        if (target == null) {
+            sender.sendMessage(getConfigMessage("player-not-found", "§cPlayer §e{player} §cis not online!")
+                    .replace("{player}", args[1]));
+            return;
+        }
+        PlayerOverrides overrides = plugin.getOverrides();
+
+        if (args.length == 2) {
+            sender.sendMessage("§6═══════ Limit Overrides of " + target.getName() + " ═══════");
+            if (overrides.getEntries(target).isEmpty()) {
+                sender.sendMessage("§7No overrides");
+            }
+            long now = System.currentTimeMillis();
+            for (PlayerOverrides.Entry entry : overrides.getEntries(target)) {
+                sender.sendMessage("§e- " + entry.name + " §7max §b" + entry.level + (entry.expires > 0
+                        ? " §7for §a" + formatDuration(entry.expires - now) : " §7(permanent)"));
+            }
+            return;
+        }
+        if (args.length < 4) {
+            sender.sendMessage("§cUsage: /elrenchant override <player> <enchant|*> <level> [duration]");
+            return;
+        }
+
+        String name = args[2].toLowerCase();
+        if (!name.equals(PlayerOverrides.ALL)) {
+            int index = plugin.getPolicy().getRegistry().indexOf(name);
+            if (index < 0) {
+                sender.sendMessage(getConfigMessage("invalid-enchant", "§cInvalid enchantment name! Use §e/elrenchant list §cto see available enchantments."));
+                return;
+            }
+            name = plugin.getPolicy().getRegistry().getName(index);
+        }
+
+        int level;
+        long duration = 0;
+        try {
+            level = Integer.parseInt(args[3]);
+            if (args.length > 4) {
+                duration = parseDuration(args[4]);
+            }
+        } catch (NumberFormatException e) {
+            sender.sendMessage("§cUsage: /elrenchant override <player> <enchant|*> <level> [duration, e.g. 30m, 2h, 7d]");
+            return;
+        }
+        if (level < 0 || duration < 0) {
+            sender.sendMessage(getConfigMessage("invalid-level", "§cInvalid level! Please enter a valid number."));
+            return;
+        }
+
+        overrides.set(target, name, level, duration > 0 ? System.currentTimeMillis() + duration : 0);
+        if (level == 0) {
+            sender.sendMessage(getConfigMessage("override-removed", "§aRemoved the §e{enchantment} §aoverride of §e{player}§a.")
+                    .replace("{enchantment}", name)
+                    .replace("{player}", target.getName()));
+        } else {
+            sender.sendMessage(getConfigMessage("override-set", "§aSet the §e{enchantment} §alimit of §e{player} §ato §b{level}§a ({duration}).")
+                    .replace("{enchantment}", name)
+                    .replace("{player}", target.getName())
+                    .replace("{level}", String.valueOf(level))
+                    .replace("{duration}", duration > 0 ? formatDuration(duration) : "permanent"));
+        }
+        plugin.getLogger().info(sender.getName() + " set limit override " + name + "=" + level + " for " + target.getName()
+                + (duration > 0 ? " for " + formatDuration(duration) : ""));
+    }
+
+    /**
+     * Gets the position of the target argument of a targeted add, remove or clear, or -1 for the held-item forms
+     */
+    private static int targetPosition(String[] args) {
+        switch (args[0].toLowerCase()) {
+            case "add": return args.length >= 4 ? 3 : -1;
+            case "remove": return args.length >= 3 ? 2 : -1;
+            case "clear": return args.length >= 2 ? 1 : -1;
+            default: return -1;
+        }
+    }
+
+    private void handleTargeted(CommandSender sender, String[] args, int targetPosition) {
+        BulkEnchantJob.Action action = BulkEnchantJob.Action.valueOf(args[0].toUpperCase());
+        EnchantmentRegistry registry = plugin.getPolicy().getRegistry();
+        int index = -1;
+        int level = 0;
+        if (action != BulkEnchantJob.Action.CLEAR) {
+            index = registry.indexOf(args[1]);
+            if (index < 0 || (!registry.isCustom(index) && registry.getEnchantment(index) == null)) {
+                sender.sendMessage(getConfigMessage("invalid-enchant", "§cInvalid enchantment name! Use §e/elrenchant list §cto see available enchantments."));
+                return;
+            }
+        }
+        if (action == BulkEnchantJob.Action.ADD) {
+            try {
+                level = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                level = 0;
+            }
+            if (level <= 0) {
+                sender.sendMessage(getConfigMessage("invalid-level", "§cInvalid level number! Please enter a valid integer."));
+                return;
+            }
+            if (registry.isCustom(index) && level > registry.getCustom(index).getMaxLevel()) {
+                sender.sendMessage(getConfigMessage("level-too-high", "§cMaximum enchantment level for you is {max-level}!")
+                        .replace("{max-level}", String.valueOf(registry.getCustom(index).getMaxLevel())));
+                return;
+            }
+        }
+
+        Integer slot = args.length > targetPosition + 1 ? BulkEnchantJob.parseSlot(args[targetPosition + 1]) : Integer.valueOf(BulkEnchantJob.HAND);
+        if (slot == null) {
+            sender.sendMessage("§cUnknown slot §e" + args[targetPosition + 1] + "§c! Use hand, offhand, head, chest, legs, feet, inventory or 0-40.");
+            return;
+        }
+
+        Set<Player> targets;
+        try {
+            targets = BulkEnchantJob.selectPlayers(plugin, sender, args[targetPosition]);
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage("§cInvalid selector: " + e.getMessage());
+            return;
+        }
+        if (targets.isEmpty()) {
+            sender.sendMessage(getConfigMessage("player-not-found", "§cPlayer §e{player} §cis not online!")
+                    .replace("{player}", args[targetPosition]));
+            return;
+        }
+
+        BulkEnchantJob job = BulkEnchantJob.start(plugin, sender, registry, action, index, level, slot, targets);
+        if (job.isRunning()) {
+            sender.sendMessage("§6Processing " + targets.size() + " players, a summary follows when done...");
+        }
+    }
+
+    private void handleBalance(CommandSender sender, String[] args) {
+        EnchantEconomy economy = plugin.getEconomy();
+        if (!economy.isEnabled()) {
+            sender.sendMessage("§cThe economy is disabled in the config!");
+            return;
+        }
+        Player target;
+        if (args.length > 1) {
+            target = plugin.getServer().getPlayerExact(args[1]);
+            if (target == null) {
+                sender.sendMessage(getConfigMessage("player-not-found", "§cPlayer §e{player} §cis not online!")
+                        .replace("{player}", args[1]));
+                return;
+            }
+        } else if (sender instanceof Player) {
+            target = (Player) sender;
+        } else {
+            sender.sendMessage("§cUsage: /elrenchant balance <player> [give|take|set <amount>]");
+            return;
+        }
+
+        EconomyBackend backend = economy.getBackend();
+        if (args.length <= 2) {
+            sender.sendMessage("§6" + target.getName() + "§7: §e" + backend.format(backend.getBalance(target))
+                    + " §7(" + backend.getName() + ", §e" + backend.format(economy.getCost(1)) + " §7per level)");
+            return;
+        }
+
+        // Vault balances belong to the economy plugin and item balances to the inventory
+        if (!(backend instanceof LedgerEconomy)) {
+            sender.sendMessage("§cBalances can only be adjusted here when the built-in ledger is used!");
+            return;
+        }
+        double amount;
+        try {
+            amount = args.length > 3 ? Double.parseDouble(args[3]) : -1;
+        } catch (NumberFormatException e) {
+            amount = -1;
+        }
+        if (amount < 0 || Double.isInfinite(amount) || Double.isNaN(amount)) {
+            sender.sendMessage("§cUsage: /elrenchant balance <player> <give|take|set> <amount>");
+            return;
+        }
+
+        LedgerEconomy ledger = (LedgerEconomy) backend;
+        double balance = ledger.getBalance(target);
+        switch (args[2].toLowerCase()) {
+            case "give": balance += amount; break;
+            case "take": balance = Math.max(0, balance - amount); break;
+            case "set": balance = amount; break;
+            default:
+                sender.sendMessage("§cUsage: /elrenchant balance <player> <give|take|set> <amount>");
+                return;
+        }
+        ledger.set(target.getUniqueId(), balance);
+        sender.sendMessage("§aThe balance of §e" + target.getName() + " §ais now §e" + ledger.format(balance) + "§a.");
+        plugin.getLogger().info(sender.getName() + " changed the ledger balance of " + target.getName() + " to " + ledger.format(balance));
+    }
+
+    /**
+     * Parses durations like 90s, 30m, 2h or 7d into milliseconds; a plain number means seconds
+     */
+    private static long parseDuration(String value) {
+        char unit = Character.toLowerCase(value.charAt(value.length() - 1));
+        long multiplier;
+        switch (unit) {
+            case 's': multiplier = 1000L; break;
+            case 'm': multiplier = 60_000L; break;
+            case 'h': multiplier = 3_600_000L; break;
+            case 'd': multiplier = 86_400_000L; break;
+            default: return Long.parseLong(value) * 1000L;
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * multiplier;
+    }
+
+    private static String formatDuration(long millis) {
+        long seconds = Math.max(0, millis / 1000L);
+        if (seconds >= 86_400) {
+            return seconds / 86_400 + "d " + (seconds % 86_400) / 3600 + "h";
+        }
+        if (seconds >= 3600) {
+            return seconds / 3600 + "h " + (seconds % 3600) / 60 + "m";
+        }
+        return seconds >= 60 ? seconds / 60 + "m " + seconds % 60 + "s" : seconds + "s";
+    }
+
+    private void handleMigrate(CommandSender sender, boolean dryRun) {
+        if (migrationRunning) {
+            sender.sendMessage("§cA migration is already running!");
+            return;
+        }
+
+        // Offline permissions are unknown, so every file is checked against the configured tier
+        String tierName = plugin.getConfig().getString("migration.tier", "0");
+        int tier = plugin.getLimitGroups().tierOf(tierName);
+        if (tier < 0) {
+            sender.sendMessage("§cUnknown migration.tier in config: " + tierName);
+            return;
+        }
+
+        // Online players are skipped, also if they join while their file is processed; their inventories
+        // are checked by the running plugin. The workers only read a set kept up to date on the main thread.
+        OnlinePlayers online = new OnlinePlayers();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            online.uuids.add(player.getUniqueId().toString());
+        }
+        plugin.getServer().getPluginManager().registerEvents(online, plugin);
+        Path playerData = plugin.getServer().getWorlds().get(0).getWorldFolder().toPath().resolve("playerdata");
+        PlayerDataMigrator migrator = new PlayerDataMigrator(PlayerDataMigrator.rules(plugin.getPolicy(), tier),
+                plugin.getConfig().getInt("migration.threads", 4), dryRun, online.uuids::contains);
+
+        migrationRunning = true;
+        sender.sendMessage("§6" + (dryRun ? "Checking" : "Migrating") + " offline player data with limit tier §e"
+                + plugin.getLimitGroups().getName(tier) + "§6...");
+        if (plugin.getWorldPolicies().size() > 0) {
+            sender.sendMessage("§eWorld limit profiles are not applied: offline data is checked against the global limits.");
+        }
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            String message;
+            try {
+                PlayerDataMigrator.Result result = migrator.run(playerData);
+                Path report = result.writeReport(plugin.getDataFolder().toPath(), dryRun);
+                message = "§a" + (dryRun ? "Dry run: " : "Migration done: ") + result.getSummary() + "\n§7Report: " + report.getFileName();
+            } catch (Exception e) {
+                plugin.getLogger().warning("Player data migration failed: " + e);
+                message = "§cMigration failed: " + e.getMessage();
+            }
+            String done = message;
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                HandlerList.unregisterAll(online);
+                migrationRunning = false;
+                sender.sendMessage(done);
+                plugin.getLogger().info(done.replaceAll("§.", ""));
+            });
+        });
+    }
+
+    /**
+     * UUIDs of players who are online or logging in, registered as a listener while a migration runs.
+     * Players are added at pre-login, before their data file is read, and removed when they quit.
+     */
+    private static class OnlinePlayers implements Listener {
+        final Set<String> uuids = ConcurrentHashMap.newKeySet();
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+            if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+                uuids.add(event.getUniqueId().toString());
+            }
+        }
+
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onJoin(PlayerJoinEvent event) {
+            uuids.add(event.getPlayer().getUniqueId().toString());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onQuit(PlayerQuitEvent event) {
+            uuids.remove(event.getPlayer().getUniqueId().toString());
+        }
+    }
+
+    private void handleAudit(Player player, String fileName) {
+        if (!player.hasPermission("elr.command.audit")) {
+            player.sendMessage(getConfigMessage("no-permission", "§cYou don't have permission to use this command!"));
+            return;
+        }
+        if (audit != null && audit.isRunning()) {
+            player.sendMessage("§cAn audit is already running!");
+            return;
+        }
+
+        if (!InventoryAudit.isPlainFileName(fileName)) {
+            player.sendMessage("§cThe candidate must be a file name in the plugin folder, without a path: " + fileName);
+            return;
+        }
+        audit = InventoryAudit.start(plugin, player, fileName);
+        if (audit == null) {
+            player.sendMessage("§cCandidate file not found in the plugin folder: " + fileName);
+            return;
+        }
+        player.sendMessage("§6Auditing " + plugin.getServer().getOnlinePlayers().size() + " online players against §e" + fileName + "§6...");
+    }
+
+    private void handleAnalytics(Player player) {
+        EnchantAnalytics analytics = plugin.getAnalytics();
+        if (!analytics.isEnabled()) {
+            player.sendMessage("§cAnalytics are disabled in the config!");
+            return;
+        }
+
+        player.sendMessage("§6═══════ Enchantment Analytics ═══════");
+        StringBuilder checks = new StringBuilder("§eChecks:");
+        for (EnchantAnalytics.Source source : EnchantAnalytics.Source.values()) {
+            checks.append(" §7").append(source.name().toLowerCase()).append(" §a").append(analytics.getChecks(source));
+        }
+        player.sendMessage(checks.toString());
+        player.sendMessage("§eMost common enchanted or corrected levels §7(enchantment, item, level):");
+        for (String line : analytics.topLevels(10)) {
+            player.sendMessage("§7- §f" + line);
+        }
+        player.sendMessage("§eMost common fixes:");
+        for (String line : analytics.topFixes(5)) {
+            player.sendMessage("§7- §f" + line);
+        }
+        player.sendMessage("§6═══════════════════════════════════════");
+    }
+}
@@ -0,0 +1,155 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+
+/**
+ * Charges players for enchantments they add with /elrenchant add, and for enchanting table results if
+ * economy.charge-enchanting-table is also set, if economy.enabled is set.
+ * The backend is chosen on first use, so economy plugins that enable after this one are found:
+ * items if economy.use-item-economy is set, otherwise Vault if it is installed with an economy plugin,
+ * otherwise the built-in {@link LedgerEconomy}. Main thread only.
+ */
+public class EnchantEconomy {
+    private final EnchantLimitRemover plugin;
+    private EconomyBackend backend;
+    private LedgerEconomy ledger;
+    private boolean enabled;
+    private double costPerLevel;
+    private boolean chargeEnchantingTable;
+
+    public EnchantEconomy(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Reads the settings; the backend is chosen again on the next charge
+     */
+    public void load() {
+        enabled = plugin.getConfig().getBoolean("economy.enabled", false);
+        costPerLevel = plugin.getConfig().getDouble("economy.cost-per-level", 100.0);
+        chargeEnchantingTable = plugin.getConfig().getBoolean("economy.charge-enchanting-table", false);
+        backend = null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checks whether enchanting table results are charged on top of the vanilla experience and lapis cost
+     */
+    public boolean isChargingEnchantingTable() {
+        return enabled && chargeEnchantingTable;
+    }
+
+    /**
+     * Gets the backend charges go to, choosing it if needed
+     */
+    public EconomyBackend getBackend() {
+        if (backend != null) {
+            return backend;
+        }
+        if (plugin.getConfig().getBoolean("economy.use-item-economy", false)) {
+            String name = plugin.getConfig().getString("economy.item.material", "DIAMOND");
+            Material material = Material.matchMaterial(name);
+            if (material == null || !material.isItem()) {
+                plugin.getLogger().warning("Invalid economy.item.material in config: " + name + ", using DIAMOND");
+                material = Material.DIAMOND;
+            }
+            backend = new ItemEconomy(material);
+        } else if (plugin.getServer().getPluginManager().isPluginEnabled("Vault")) {
+            backend = VaultEconomy.find(plugin);
+        }
+        if (backend == null) {
+            backend = getLedger();
+        }
+        plugin.debugLog("Charging enchantments through " + backend.getName());
+        return backend;
+    }
+
+    /**
+     * Gets the built-in ledger, opening it on first use
+     */
+    public LedgerEconomy getLedger() {
+        if (ledger == null) {
+            ledger = new LedgerEconomy(plugin, plugin.getConfig().getDouble("economy.ledger.starting-balance", 0.0));
+            try {
+                ledger.open();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not open ledger.journal, balances will not be saved: " + e.getMessage());
+            }
+        }
+        return ledger;
+    }
+
+    /**
+     * Gets the price of a number of enchantment levels in the backend's unit
+     */
+    public double getCost(int levels) {
+        if (getBackend() instanceof ItemEconomy) {
+            return Math.ceil(levels * plugin.getConfig().getDouble("economy.item.value", 1.0));
+        }
+        return levels * costPerLevel;
+    }
+
+    /**
+     * Checks whether a player could pay for enchantment levels without charging them, telling them if not
+     * @return true if the player can pay or does not have to pay
+     */
+    public boolean canAfford(Player player, int levels) {
+        if (!enabled || levels <= 0 || player.hasPermission("elr.bypass.cost")) {
+            return true;
+        }
+        EconomyBackend economy = getBackend();
+        double cost = getCost(levels);
+        if (economy.getBalance(player) < cost) {
+            sendInsufficientFunds(player, economy, cost);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Charges a player for enchantment levels and tells them the outcome
+     * @return true if the player paid or does not have to pay
+     */
+    public boolean charge(Player player, int levels) {
+        if (!enabled || levels <= 0 || player.hasPermission("elr.bypass.cost")) {
+            return true;
+        }
+        EconomyBackend economy = getBackend();
+        double cost = getCost(levels);
+        if (!economy.withdraw(player, cost)) {
+            sendInsufficientFunds(player, economy, cost);
+            return false;
+        }
+        if (plugin.getConfig().getBoolean("show-messages", true)) {
+            player.sendMessage(getConfigMessage("economy-charged", "{prefix}§7Charged §e{cost}§7.")
+                    .replace("{cost}", economy.format(cost)));
+        }
+        plugin.debugLog("Charged " + player.getName() + " " + economy.format(cost) + " for " + levels + " levels through " + economy.getName());
+        return true;
+    }
+
+    private void sendInsufficientFunds(Player player, EconomyBackend economy, double cost) {
+        player.sendMessage(getConfigMessage("insufficient-funds", "{prefix}§cYou need §e{cost} §cfor this, you have §e{balance}§c.")
+                .replace("{cost}", economy.format(cost))
+                .replace("{balance}", economy.format(economy.getBalance(player))));
+    }
+
+    public void shutdown() {
+        if (ledger != null) {
+            ledger.close();
+            ledger = null;
+        }
+        backend = null;
+    }
+
+    private String getConfigMessage(String key, String defaultMessage) {
+        return plugin.getConfig().getString("messages." + key, defaultMessage)
+                .replace("{prefix}", plugin.getConfig().getString("messages.prefix", "§6[§eELR§6] "));
+    }
+}
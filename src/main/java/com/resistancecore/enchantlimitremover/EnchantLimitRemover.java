@@ -1,9 +1,9 @@
 package com.resistancecore.enchantlimitremover;
 
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.enchantments.Enchantment;
-import org.bukkit.NamespacedKey;
 
 import java.util.List;
 import java.util.Map;
@@ -12,17 +12,78 @@ import java.util.HashMap;
 public class EnchantLimitRemover extends JavaPlugin {
     
     private Map<String, Integer> permissionLevelCache = new HashMap<>();
+    private CustomEnchantments customEnchantments;
+    private VeinMiner veinMiner;
+    private Telekinesis telekinesis;
+    private EnchantmentEnforcer enforcer;
+    private volatile EnchantmentRegistry registry;
+    private volatile WorldPolicies policies;
+    private InventorySweepQueue sweepQueue;
+    private PlayerTiers playerTiers;
+    private EnchantAnalytics analytics;
+    private ExploitDetector exploitDetector;
+    private NotificationDigest notifications;
+    private EnchantListPages listPages;
+    private PlayerOverrides overrides;
+    private ResultCorrections resultCorrections;
+    private EntityEquipmentSweep entitySweep;
+    private GeneratedLoot generatedLoot;
+    private ConfigWatcher configWatcher;
+    private EnchantEconomy economy;
     
     @Override
     public void onEnable() {
         // Save default config if it doesn't exist
         saveDefaultConfig();
         
+        // Load custom enchantment definitions and index all enchantments
+        customEnchantments = new CustomEnchantments(this);
+        customEnchantments.load();
+        rebuildRegistry();
+        
         // Validate and fix config
         validateConfig();
         
+        veinMiner = new VeinMiner(this);
+        veinMiner.load();
+        telekinesis = new Telekinesis(this);
+        exploitDetector = new ExploitDetector(this);
+        notifications = new NotificationDigest(this);
+        economy = new EnchantEconomy(this);
+        exploitDetector.load();
+        economy.load();
+        
+        // Compile the limit policy
+        enforcer = new EnchantmentEnforcer(this);
+        sweepQueue = new InventorySweepQueue(this);
+        playerTiers = new PlayerTiers(this);
+        analytics = new EnchantAnalytics(this);
+        listPages = new EnchantListPages(this);
+        overrides = new PlayerOverrides(this);
+        resultCorrections = new ResultCorrections(this);
+        entitySweep = new EntityEquipmentSweep(this);
+        generatedLoot = new GeneratedLoot(this);
+        compilePolicy();
+        
         // Register events and commands with plugin instance
         getServer().getPluginManager().registerEvents(new EnchantmentListener(this), this);
+        getServer().getPluginManager().registerEvents(veinMiner, this);
+        getServer().getPluginManager().registerEvents(telekinesis, this);
+        getServer().getPluginManager().registerEvents(playerTiers, this);
+        getServer().getPluginManager().registerEvents(exploitDetector, this);
+        getServer().getPluginManager().registerEvents(notifications, this);
+        getServer().getPluginManager().registerEvents(overrides, this);
+        getServer().getPluginManager().registerEvents(resultCorrections, this);
+        getServer().getPluginManager().registerEvents(entitySweep, this);
+        getServer().getPluginManager().registerEvents(generatedLoot, this);
+        
+        // Watch config.yml for changes if hot reload is enabled
+        configWatcher = new ConfigWatcher(this);
+        configWatcher.load();
+        
+        // Expose limit queries to other plugins
+        getServer().getServicesManager().register(EnchantLimitService.class, new PolicyLimitService(this), this,
+                org.bukkit.plugin.ServicePriority.Normal);
         
         // Register command executor and tab completer
         if (getCommand("elrenchant") != null) {
@@ -61,6 +122,24 @@ public class EnchantLimitRemover extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        // Drop anything collected by running vein mining jobs and insert pending telekinesis drops
+        if (veinMiner != null) {
+            veinMiner.shutdown();
+            telekinesis.shutdown();
+            sweepQueue.shutdown();
+            playerTiers.shutdown();
+            analytics.shutdown();
+            notifications.shutdown();
+            overrides.shutdown();
+            entitySweep.shutdown();
+            economy.shutdown();
+        }
+        if (configWatcher != null) {
+            configWatcher.shutdown();
+        }
+        
+        getServer().getServicesManager().unregisterAll(this);
+        
         // Clear cache
         permissionLevelCache.clear();
         
@@ -132,26 +211,31 @@ public class EnchantLimitRemover extends JavaPlugin {
             configChanged = true;
         }
         
-        // Validate disabled enchantments exist
-        List<String> disabledEnchants = config.getStringList("disabled-enchantments");
-        List<String> validDisabledEnchants = new java.util.ArrayList<>();
-        for (String enchantName : disabledEnchants) {
-            Enchantment enchant = Enchantment.getByKey(NamespacedKey.minecraft(enchantName.toLowerCase()));
-            if (enchant != null) {
-                validDisabledEnchants.add(enchantName.toLowerCase());
-            } else {
-                getLogger().warning("Invalid enchantment name in disabled list: " + enchantName);
+        // Validate disabled enchantments exist (skipped until the registry is built)
+        if (registry != null) {
+            List<String> disabledEnchants = config.getStringList("disabled-enchantments");
+            List<String> validDisabledEnchants = new java.util.ArrayList<>();
+            for (String enchantName : disabledEnchants) {
+                if (registry.indexOf(enchantName) >= 0) {
+                    validDisabledEnchants.add(enchantName.toLowerCase());
+                } else {
+                    getLogger().warning("Invalid enchantment name in disabled list: " + enchantName);
+                }
+            }
+            if (validDisabledEnchants.size() != disabledEnchants.size()) {
+                config.set("disabled-enchantments", validDisabledEnchants);
+                configChanged = true;
             }
-        }
-        if (validDisabledEnchants.size() != disabledEnchants.size()) {
-            config.set("disabled-enchantments", validDisabledEnchants);
-            configChanged = true;
         }
         
         // Validate item-specific limits
         if (config.getBoolean("item-specific-limits.enabled", false)) {
             if (config.getConfigurationSection("item-specific-limits.items") != null) {
                 for (String itemKey : config.getConfigurationSection("item-specific-limits.items").getKeys(false)) {
+                    // Tags and globs are checked when the limits are expanded
+                    if (ItemLimitPatterns.isPattern(itemKey)) {
+                        continue;
+                    }
                     try {
                         org.bukkit.Material.valueOf(itemKey.toUpperCase());
                     } catch (IllegalArgumentException e) {
@@ -178,10 +262,327 @@ public class EnchantLimitRemover extends JavaPlugin {
         super.reloadConfig();
         // Clear permission cache on reload
         permissionLevelCache.clear();
+        if (registry != null) {
+            customEnchantments.load();
+            rebuildRegistry();
+        }
         validateConfig();
+        if (registry != null) {
+            veinMiner.load();
+            exploitDetector.load();
+            economy.load();
+            compilePolicy();
+        }
+        if (configWatcher != null) {
+            configWatcher.load();
+        }
         getLogger().info("Configuration reloaded successfully!");
     }
     
+    /**
+     * Indexes all server and custom enchantments, including configured aliases
+     */
+    private void rebuildRegistry() {
+        Map<String, String> aliases = new HashMap<>();
+        ConfigurationSection section = getConfig().getConfigurationSection("enchantment-aliases");
+        if (section != null) {
+            for (String alias : section.getKeys(false)) {
+                aliases.put(alias, section.getString(alias));
+            }
+        }
+        registry = EnchantmentRegistry.build(customEnchantments, aliases);
+    }
+    
+    /**
+     * Compiles the global limit policy and the per-world limit profiles from the current configuration
+     */
+    private void compilePolicy() {
+        LimitGroups groups = LimitGroups.compile(getConfig(), getLogger());
+        applyPolicy(groups, compileWorldPolicies(getConfig(), groups));
+    }
+    
+    /**
+     * Swaps in compiled policies and refreshes everything derived from them
+     */
+    private void applyPolicy(LimitGroups groups, WorldPolicies compiled) {
+        for (org.bukkit.World world : getServer().getWorlds()) {
+            compiled.bind(world);
+        }
+        policies = compiled;
+        playerTiers.load(groups);
+        analytics.load(registry);
+        listPages.load();
+        overrides.load();
+        resultCorrections.load();
+        entitySweep.load(groups);
+        generatedLoot.load(groups);
+        
+        debugLog("Compiled policy for " + registry.size() + " enchantments (" + registry.serverCount() + " server, "
+                + (registry.size() - registry.serverCount()) + " custom), " + compiled.size() + " world profiles, "
+                + groups.size() + " tiers" + (groups.isEnabled() ? " from limit groups" : ""));
+    }
+    
+    /**
+     * Applies a configuration the config watcher has already parsed, validated and compiled.
+     * Main thread only; the registry must not have changed since compiling.
+     */
+    public void applyWatchedConfig(String yaml, LimitGroups groups, WorldPolicies compiled) {
+        try {
+            getConfig().loadFromString(yaml);
+        } catch (org.bukkit.configuration.InvalidConfigurationException e) {
+            getLogger().warning("Could not apply changed config.yml: " + e.getMessage());
+            return;
+        }
+        permissionLevelCache.clear();
+        veinMiner.load();
+        exploitDetector.load();
+        economy.load();
+        applyPolicy(groups, compiled);
+    }
+    
+    /**
+     * Lists the problems {@link #validateConfig()} would fix in a configuration, without changing it.
+     * Safe to call off the main thread.
+     */
+    public List<String> findConfigErrors(FileConfiguration config) {
+        List<String> errors = new java.util.ArrayList<>();
+        int baseMax = config.getInt("max-enchant-level", -1);
+        int absoluteMax = config.getInt("security.absolute-max-level", 1000);
+        if (baseMax < 1) {
+            errors.add("max-enchant-level must be at least 1");
+        }
+        if (absoluteMax < 1 || absoluteMax > 32767) {
+            errors.add("security.absolute-max-level must be between 1 and 32767");
+        } else if (baseMax > absoluteMax) {
+            errors.add("max-enchant-level (" + baseMax + ") is higher than security.absolute-max-level (" + absoluteMax + ")");
+        }
+        String language = config.getString("language", "en");
+        if (!language.equals("en") && !language.equals("id")) {
+            errors.add("language must be en or id");
+        }
+        for (String enchantName : config.getStringList("disabled-enchantments")) {
+            if (registry.indexOf(enchantName) < 0) {
+                errors.add("Unknown enchantment in disabled-enchantments: " + enchantName);
+            }
+        }
+        ConfigurationSection items = config.getConfigurationSection("item-specific-limits.items");
+        if (config.getBoolean("item-specific-limits.enabled", false) && items != null) {
+            for (String itemKey : items.getKeys(false)) {
+                if (!ItemLimitPatterns.isPattern(itemKey) && org.bukkit.Material.getMaterial(itemKey.toUpperCase()) == null) {
+                    errors.add("Invalid material in item-specific-limits: " + itemKey);
+                }
+            }
+        }
+        findFormulaError(config.getString("enchant-formulas.default"), "enchant-formulas.default", errors);
+        ConfigurationSection formulas = config.getConfigurationSection("enchant-formulas.enchants");
+        if (formulas != null) {
+            for (String enchantName : formulas.getKeys(false)) {
+                if (registry.indexOf(enchantName.toLowerCase()) < 0) {
+                    errors.add("Unknown enchantment in enchant-formulas: " + enchantName);
+                }
+                findFormulaError(formulas.getString(enchantName), "enchant-formulas.enchants." + enchantName, errors);
+            }
+        }
+        ConfigurationSection definitions = config.getConfigurationSection("groups.definitions");
+        if (definitions != null) {
+            for (String groupName : definitions.getKeys(false)) {
+                String path = "groups.definitions." + groupName;
+                findFormulaError(config.getString(path + ".formula"), path + ".formula", errors);
+                ConfigurationSection enchants = config.getConfigurationSection(path + ".enchants");
+                if (enchants != null) {
+                    for (String enchantName : enchants.getKeys(false)) {
+                        if (enchants.isString(enchantName)) {
+                            findFormulaError(enchants.getString(enchantName), path + ".enchants." + enchantName, errors);
+                        }
+                    }
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static void findFormulaError(String formula, String path, List<String> errors) {
+        if (formula == null || formula.trim().isEmpty()) {
+            return;
+        }
+        try {
+            CapFormula.parse(formula);
+        } catch (IllegalArgumentException e) {
+            errors.add(path + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Compiles the global policy and the world profile mapping of a configuration against the current registry.
+     * The returned policies are not bound to any world yet.
+     */
+    public WorldPolicies compileWorldPolicies(FileConfiguration config, LimitGroups groups) {
+        EnchantPolicy global = EnchantPolicy.compile(config, registry, groups, getLogger());
+        
+        Map<String, EnchantPolicy> profiles = new HashMap<>();
+        ConfigurationSection profileSection = config.getConfigurationSection("limit-profiles.profiles");
+        if (profileSection != null) {
+            for (String name : profileSection.getKeys(false)) {
+                ConfigurationSection profile = profileSection.getConfigurationSection(name);
+                if (profile != null) {
+                    profiles.put(name.toLowerCase(), EnchantPolicy.compile(name, config, profile, registry, groups, getLogger()));
+                }
+            }
+        }
+        
+        Map<String, EnchantPolicy> byWorldName = new HashMap<>();
+        ConfigurationSection worldSection = config.getConfigurationSection("limit-profiles.worlds");
+        if (worldSection != null) {
+            for (String worldName : worldSection.getKeys(false)) {
+                String profileName = worldSection.getString(worldName, "");
+                EnchantPolicy profile = profiles.get(profileName.toLowerCase());
+                if (profile != null) {
+                    byWorldName.put(worldName.toLowerCase(), profile);
+                } else {
+                    getLogger().warning("Unknown limit profile '" + profileName + "' for world " + worldName);
+                }
+            }
+        }
+        
+        return new WorldPolicies(global, byWorldName);
+    }
+    
+    /**
+     * Re-indexes enchantments after datapacks were reloaded and recompiles the policy
+     */
+    public void refreshRegistry() {
+        rebuildRegistry();
+        compilePolicy();
+        getLogger().info("Enchantment registry refreshed: " + registry.serverCount() + " server enchantments");
+    }
+    
+    /**
+     * Gets the compiled global limit policy
+     */
+    public EnchantPolicy getPolicy() {
+        return policies.getGlobal();
+    }
+    
+    /**
+     * Gets the compiled limit policy for a world
+     */
+    public EnchantPolicy getPolicy(org.bukkit.World world) {
+        return policies.get(world);
+    }
+    
+    /**
+     * Gets the per-world policy mapping
+     */
+    public WorldPolicies getWorldPolicies() {
+        return policies;
+    }
+    
+    /**
+     * Gets the queue for deferred inventory re-checks
+     */
+    public InventorySweepQueue getSweepQueue() {
+        return sweepQueue;
+    }
+    
+    /**
+     * Gets the enchantment level and fix counters
+     */
+    public EnchantAnalytics getAnalytics() {
+        return analytics;
+    }
+    
+    /**
+     * Gets the sliding-window exploit detector
+     */
+    public ExploitDetector getExploitDetector() {
+        return exploitDetector;
+    }
+    
+    /**
+     * Gets the per-player limit overrides
+     */
+    public PlayerOverrides getOverrides() {
+        return overrides;
+    }
+    
+    /**
+     * Gets the cached pages of /elrenchant list
+     */
+    public EnchantListPages getListPages() {
+        return listPages;
+    }
+    
+    /**
+     * Gets the per-player notification digest
+     */
+    public NotificationDigest getNotifications() {
+        return notifications;
+    }
+    
+    /**
+     * Gets the economy that charges for added enchantments
+     */
+    public EnchantEconomy getEconomy() {
+        return economy;
+    }
+    
+    /**
+     * Gets the enforcer that checks and fixes items
+     */
+    public EnchantmentEnforcer getEnforcer() {
+        return enforcer;
+    }
+    
+    /**
+     * Gets the cached limit tier of a player
+     */
+    public int getTier(org.bukkit.entity.Player player) {
+        return playerTiers.getTier(player);
+    }
+    
+    /**
+     * Gets the compiled limit groups
+     */
+    public LimitGroups getLimitGroups() {
+        return playerTiers.getGroups();
+    }
+    
+    /**
+     * Gets the maximum enchantment level for a player considering all limits
+     * @param enchantment The enchantment, or null for the general limit
+     * @param itemType The item type, or null for the general limit
+     */
+    public int getMaxLevel(org.bukkit.entity.Player player, Enchantment enchantment, org.bukkit.Material itemType) {
+        return getMaxLevel(player, policies.get(player.getWorld()).getRegistry().indexOf(enchantment), itemType);
+    }
+    
+    /**
+     * Gets the maximum level for an enchantment by registry index; custom enchantments are also capped by
+     * their own max-level
+     * @param index The enchantment index, or -1 for the general limit
+     */
+    public int getMaxLevel(org.bukkit.entity.Player player, int index, org.bukkit.Material itemType) {
+        EnchantPolicy current = policies.get(player.getWorld());
+        int maxLevel = PlayerOverrides.apply(overrides.get(player), index, current.getMaxLevel(getTier(player), index, itemType));
+        EnchantmentRegistry currentRegistry = current.getRegistry();
+        return index >= 0 && currentRegistry.isCustom(index)
+                ? Math.min(maxLevel, currentRegistry.getCustom(index).getMaxLevel()) : maxLevel;
+    }
+    
+    /**
+     * Gets the maximum levels of several enchantments on one item type, resolving policy and tier once
+     */
+    public void getMaxLevels(org.bukkit.entity.Player player, org.bukkit.Material itemType, Enchantment[] enchantments, int[] out) {
+        EnchantPolicy current = policies.get(player.getWorld());
+        EnchantmentRegistry currentRegistry = current.getRegistry();
+        int tier = getTier(player);
+        int[] caps = overrides.get(player);
+        for (int i = 0; i < enchantments.length; i++) {
+            int index = currentRegistry.indexOf(enchantments[i]);
+            out[i] = PlayerOverrides.apply(caps, index, current.getMaxLevel(tier, index, itemType));
+        }
+    }
+    
     /**
      * Gets the plugin version
      */
@@ -189,6 +590,20 @@ public class EnchantLimitRemover extends JavaPlugin {
         return getDescription().getVersion();
     }
     
+    /**
+     * Gets the loaded custom enchantment definitions
+     */
+    public CustomEnchantments getCustomEnchantments() {
+        return customEnchantments;
+    }
+    
+    /**
+     * Gets the telekinesis drop collector
+     */
+    public Telekinesis getTelekinesis() {
+        return telekinesis;
+    }
+    
     /**
      * Checks if debug mode is enabled
      */
@@ -231,13 +646,10 @@ public class EnchantLimitRemover extends JavaPlugin {
     }
     
     /**
-     * Calculates the maximum permission level for a player
+     * Calculates the maximum permission level for a player. The level is always resolved; whether it raises
+     * the player's limit is up to use-permission-levels of the world's policy.
      */
     private int calculatePermissionLevel(org.bukkit.entity.Player player) {
-        if (!getConfig().getBoolean("use-permission-levels", true)) {
-            return 0; // No permission levels
-        }
-        
         // Check common permission levels first (optimization)
         int[] commonLevels = {1000, 500, 255, 100, 50, 20, 10, 5, 1};
         
@@ -0,0 +1,59 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Limit queries for other plugins, registered with Bukkit's ServicesManager:
+ * <pre>
+ * EnchantLimitService limits = Bukkit.getServicesManager().load(EnchantLimitService.class);
+ * </pre>
+ * Answers come from the same compiled policy and cached player tiers the plugin enforces with.
+ * All methods must be called from the main thread.
+ */
+public interface EnchantLimitService {
+
+    /**
+     * Gets the maximum level of an enchantment on an item type for a player
+     * @param enchantment The enchantment, or null for the player's general limit
+     * @param type The item type, or null to ignore item-specific limits
+     */
+    int getMaxLevel(Player player, Enchantment enchantment, Material type);
+
+    /**
+     * Gets the maximum levels of many enchantments on one item type.
+     * Writes nothing but the output array, so callers can reuse it between calls.
+     * @param out Receives the cap of enchantments[i] at out[i]; must be at least as long as enchantments
+     */
+    void getMaxLevels(Player player, Material type, Enchantment[] enchantments, int[] out);
+
+    /**
+     * Checks whether an enchantment is disabled for a player, considering elr.bypass.disabled
+     */
+    boolean isDisabled(Player player, Enchantment enchantment);
+
+    /**
+     * Checks whether an item is within the player's limits, without changing it
+     */
+    boolean isLegal(Player player, ItemStack item);
+
+    /**
+     * Counts the items in an inventory that exceed the player's limits, without changing them
+     */
+    int validateInventory(Player player, Inventory inventory);
+
+    /**
+     * Fixes an item in place the same way the plugin does
+     * @return true if the item was changed
+     */
+    boolean correct(Player player, ItemStack item);
+
+    /**
+     * Fixes every item of an inventory in place
+     * @return The number of items changed
+     */
+    int correctInventory(Player player, Inventory inventory);
+}
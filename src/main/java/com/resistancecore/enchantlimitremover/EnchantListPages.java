@@ -0,0 +1,131 @@
+package com.resistancecore.enchantlimitremover;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-rendered pages of /elrenchant list.
+ * Pages depend only on the compiled policy, the player's tier, the elr.bypass.disabled permission and the
+ * configured language, so they are rendered once per combination and sent as one message per page.
+ * Players with personal overrides get pages rendered for them on every call, since their caps differ.
+ * The cache is dropped on every policy compile; the global policy is rendered right away, world profiles
+ * on first use. Main thread only.
+ */
+public class EnchantListPages {
+    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.legacySection();
+
+    // header, format, vanilla, your max, disabled, bypassed, page, previous, next, click to add
+    private static final String[] EN = {"§6═══════ Available Enchantments ═══════",
+            "§7Format: §eenchantment_name §7(Vanilla Max: §aX§7, Your Max: §bY§7)", "Vanilla", "Your Max",
+            "DISABLED", "DISABLED - BYPASSED", "Page", "« Previous", "Next »", "Click to add"};
+    private static final String[] ID = {"§6═══════ Enchantment Tersedia ═══════",
+            "§7Format: §enama_enchantment §7(Maks Vanilla: §aX§7, Maks Anda: §bY§7)", "Vanilla", "Maks Anda",
+            "NONAKTIF", "NONAKTIF - DILEWATI", "Halaman", "« Sebelumnya", "Berikutnya »", "Klik untuk menambahkan"};
+
+    private final EnchantLimitRemover plugin;
+    private final Map<EnchantPolicy, Component[][][]> pages = new IdentityHashMap<>();
+    private String[] text = EN;
+    private int pageSize;
+
+    public EnchantListPages(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Drops all rendered pages and renders the global policy for every tier
+     */
+    public void load() {
+        pages.clear();
+        text = plugin.getConfig().getString("language", "en").equals("id") ? ID : EN;
+        pageSize = Math.max(1, plugin.getConfig().getInt("performance.list-page-size", 15));
+
+        EnchantPolicy policy = plugin.getPolicy();
+        for (int tier = 0; tier < policy.getTierCount(); tier++) {
+            get(policy, tier, false);
+            get(policy, tier, true);
+        }
+    }
+
+    /**
+     * Gets the pages for a player in their current world
+     */
+    public Component[] get(Player player) {
+        EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+        boolean bypass = player.hasPermission("elr.bypass.disabled");
+        int[] overrides = plugin.getOverrides().get(player);
+        if (overrides != null) {
+            return render(policy, plugin.getTier(player), bypass, overrides);
+        }
+        return get(policy, plugin.getTier(player), bypass);
+    }
+
+    private Component[] get(EnchantPolicy policy, int tier, boolean bypass) {
+        Component[][][] byTier = pages.computeIfAbsent(policy, p -> new Component[p.getTierCount()][2][]);
+        int variant = bypass ? 1 : 0;
+        Component[] rendered = byTier[tier][variant];
+        if (rendered == null) {
+            rendered = render(policy, tier, bypass, null);
+            byTier[tier][variant] = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * @param overrides The player's override caps, or null for pages that can be shared
+     */
+    private Component[] render(EnchantPolicy policy, int tier, boolean bypass, int[] overrides) {
+        EnchantmentRegistry registry = policy.getRegistry();
+        List<Component> lines = new ArrayList<>(registry.serverCount());
+        for (int index = 0; index < registry.serverCount(); index++) {
+            String name = registry.getName(index);
+            int vanillaMax = registry.getEnchantment(index).getMaxLevel();
+            int max = PlayerOverrides.apply(overrides, index, policy.getMaxLevel(tier, index, null));
+            String limits = " §7(" + text[2] + ": §a" + vanillaMax + "§7, " + text[3] + ": §b" + max + "§7)";
+
+            if (policy.isDisabled(index) && !bypass) {
+                lines.add(LEGACY.deserialize("§c- " + name + " §7(§c" + text[4] + "§7)"));
+                continue;
+            }
+            String line = "§e- " + name + limits + (policy.isDisabled(index) ? " §c[" + text[5] + "]" : "");
+            lines.add(LEGACY.deserialize(line)
+                    .clickEvent(ClickEvent.suggestCommand("/elrenchant add " + name + " " + max))
+                    .hoverEvent(HoverEvent.showText(LEGACY.deserialize("§7" + text[9] + " §e" + name))));
+        }
+
+        int count = Math.max(1, (lines.size() + pageSize - 1) / pageSize);
+        Component[] rendered = new Component[count];
+        for (int page = 0; page < count; page++) {
+            Component message = LEGACY.deserialize(text[0])
+                    .append(Component.newline()).append(LEGACY.deserialize(text[1]))
+                    .append(Component.newline());
+            int end = Math.min(lines.size(), (page + 1) * pageSize);
+            for (int i = page * pageSize; i < end; i++) {
+                message = message.append(Component.newline()).append(lines.get(i));
+            }
+            rendered[page] = message.append(Component.newline()).append(footer(page, count));
+        }
+        return rendered;
+    }
+
+    private Component footer(int page, int count) {
+        Component footer = LEGACY.deserialize("§6═════ ");
+        if (page > 0) {
+            footer = footer.append(LEGACY.deserialize("§e" + text[7] + " ")
+                    .clickEvent(ClickEvent.runCommand("/elrenchant list " + page)));
+        }
+        footer = footer.append(LEGACY.deserialize("§7" + text[6] + " " + (page + 1) + "/" + count));
+        if (page + 1 < count) {
+            footer = footer.append(LEGACY.deserialize(" §e" + text[8])
+                    .clickEvent(ClickEvent.runCommand("/elrenchant list " + (page + 2))));
+        }
+        return footer.append(LEGACY.deserialize(" §6═════"));
+    }
+}
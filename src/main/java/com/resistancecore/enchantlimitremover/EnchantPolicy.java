@@ -0,0 +1,376 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Limit settings compiled from the configuration against an {@link EnchantmentRegistry}.
+ * Disabled enchantments are a bitset, and caps are flattened into a decision table per tier
+ * (see {@link LimitGroups}): one row of caps per enchantment index, plus a row per material that
+ * has item-specific limits or group overrides. Resolving a limit is a table read.
+ * <p>
+ * Caps written as {@link CapFormula formulas} are evaluated into the same rows. For an enchantment in a tier the
+ * first of these applies: the group's cap for it, the enchant-formulas entry for it, the group's formula,
+ * enchant-formulas.default, and finally the tier's max level.
+ */
+public class EnchantPolicy {
+    static final int NO_LIMIT = -1;
+
+    private final String name;
+    private final EnchantmentRegistry registry;
+    private final int baseMaxLevel;
+    private final int absoluteMaxLevel;
+    private final boolean enforceConflicts;
+    private final long[] disabled;
+    private final int[] generalCaps;
+    private final int[][] tierCaps;
+    private final int[][][] tierMaterialCaps;
+
+    private EnchantPolicy(String name, EnchantmentRegistry registry, int baseMaxLevel, int absoluteMaxLevel,
+                          boolean enforceConflicts, long[] disabled, int[] generalCaps, int[][] tierCaps,
+                          int[][][] tierMaterialCaps) {
+        this.name = name;
+        this.registry = registry;
+        this.baseMaxLevel = baseMaxLevel;
+        this.absoluteMaxLevel = absoluteMaxLevel;
+        this.enforceConflicts = enforceConflicts;
+        this.disabled = disabled;
+        this.generalCaps = generalCaps;
+        this.tierCaps = tierCaps;
+        this.tierMaterialCaps = tierMaterialCaps;
+    }
+
+    /**
+     * Compiles the global policy from the given configuration
+     */
+    public static EnchantPolicy compile(FileConfiguration config, EnchantmentRegistry registry, LimitGroups groups, Logger logger) {
+        return compile("global", config, null, registry, groups, logger);
+    }
+
+    /**
+     * Compiles the policy for a limit profile.
+     * Settings the profile does not define fall back to the global configuration;
+     * the absolute maximum level is always global.
+     * @param profile The profile section, or null for the global policy
+     * @param logger Receives the item-specific-limits expansion summary of sections this policy defines
+     */
+    public static EnchantPolicy compile(String name, FileConfiguration config, ConfigurationSection profile,
+                                        EnchantmentRegistry registry, LimitGroups groups, Logger logger) {
+        long[] disabled = new long[registry.words()];
+        for (String enchantName : source(profile, config, "disabled-enchantments").getStringList("disabled-enchantments")) {
+            int index = registry.indexOf(enchantName);
+            if (index >= 0) {
+                EnchantmentRegistry.set(disabled, index);
+            }
+        }
+
+        Material[] materials = Material.values();
+        int[][] itemLimits = new int[materials.length][];
+        ConfigurationSection limitSource = source(profile, config, "item-specific-limits");
+        ConfigurationSection items = limitSource.getConfigurationSection("item-specific-limits.items");
+        if (limitSource.getBoolean("item-specific-limits.enabled", false) && items != null) {
+            // Tags and globs are resolved here, so lookups stay a read of the material's row
+            Map<Material, Map<String, Integer>> expanded = ItemLimitPatterns.expand(items,
+                    profile == null || limitSource == profile ? logger : null);
+            for (Map.Entry<Material, Map<String, Integer>> entry : expanded.entrySet()) {
+                itemLimits[entry.getKey().ordinal()] = toRow(entry.getValue(), registry);
+            }
+        }
+
+        // Formula caps are parsed here and evaluated per tier below
+        ConfigurationSection formulaSource = source(profile, config, "enchant-formulas");
+        Logger formulaLogger = profile == null || formulaSource == profile ? logger : null;
+        CapFormula defaultFormula = null;
+        CapFormula[] enchantFormulas = new CapFormula[registry.size()];
+        if (formulaSource.getBoolean("enchant-formulas.enabled", false)) {
+            defaultFormula = parseFormula(formulaSource.getString("enchant-formulas.default"), formulaLogger);
+            ConfigurationSection section = formulaSource.getConfigurationSection("enchant-formulas.enchants");
+            if (section != null) {
+                for (String key : section.getKeys(false)) {
+                    int index = registry.indexOf(key.toLowerCase());
+                    if (index >= 0) {
+                        enchantFormulas[index] = parseFormula(section.getString(key), formulaLogger);
+                    }
+                }
+            }
+        }
+        int[] vanilla = new int[registry.size()];
+        for (int index = 0; index < vanilla.length; index++) {
+            vanilla[index] = registry.getMaxLevel(index);
+        }
+
+        int baseMaxLevel = source(profile, config, "max-enchant-level").getInt("max-enchant-level", 10);
+        int absoluteMaxLevel = config.getInt("security.absolute-max-level", 1000);
+        boolean usePermissionLevels = source(profile, config, "use-permission-levels").getBoolean("use-permission-levels", true);
+
+        // Flatten every tier into its decision table
+        int tiers = groups.size();
+        int[] generalCaps = new int[tiers];
+        int[][] tierCaps = new int[tiers][];
+        int[][][] tierMaterialCaps = new int[tiers][][];
+        for (int tier = 0; tier < tiers; tier++) {
+            LimitGroups.Group group = groups.getGroup(tier);
+            int tierMax;
+            if (group == null) {
+                int permissionLevel = LimitGroups.PERMISSION_LEVELS[tier];
+                tierMax = usePermissionLevels && permissionLevel > 0 ? Math.max(baseMaxLevel, permissionLevel) : baseMaxLevel;
+            } else {
+                tierMax = group.maxLevel != null ? group.maxLevel : baseMaxLevel;
+            }
+            generalCaps[tier] = Math.min(tierMax, absoluteMaxLevel);
+
+            int[] enchantOverrides = group != null ? toRow(group.enchants, registry) : null;
+            CapFormula[] groupFormulas = new CapFormula[registry.size()];
+            if (group != null) {
+                for (Map.Entry<String, CapFormula> entry : group.formulas.entrySet()) {
+                    int index = registry.indexOf(entry.getKey());
+                    if (index >= 0) {
+                        groupFormulas[index] = entry.getValue();
+                    }
+                }
+            }
+            CapFormula groupFormula = group != null ? group.formula : null;
+            int tierBonus = group != null ? group.tierBonus : 0;
+
+            int[] caps = new int[registry.size()];
+            for (int index = 0; index < caps.length; index++) {
+                int cap;
+                if (enchantOverrides != null && enchantOverrides[index] != NO_LIMIT) {
+                    cap = enchantOverrides[index];
+                } else {
+                    CapFormula formula = groupFormulas[index] != null ? groupFormulas[index]
+                            : enchantFormulas[index] != null ? enchantFormulas[index]
+                            : groupFormula != null ? groupFormula
+                            : defaultFormula;
+                    cap = formula != null ? formula.evaluate(vanilla[index], tier, tierMax, tierBonus) : tierMax;
+                }
+                caps[index] = Math.min(cap, absoluteMaxLevel);
+            }
+            tierCaps[tier] = caps;
+
+            int[][] materialCaps = new int[materials.length][];
+            for (int ordinal = 0; ordinal < materials.length; ordinal++) {
+                Map<String, Integer> groupLimits = group != null ? group.materials.get(materials[ordinal]) : null;
+                int[] itemRow = itemLimits[ordinal];
+                if (itemRow == null && groupLimits == null) {
+                    continue;
+                }
+
+                // Group material overrides win over item-specific limits; the absolute max always applies
+                int[] groupRow = groupLimits != null ? toRow(groupLimits, registry) : null;
+                int[] row = new int[caps.length];
+                for (int index = 0; index < row.length; index++) {
+                    if (groupRow != null && groupRow[index] != NO_LIMIT) {
+                        row[index] = Math.min(groupRow[index], absoluteMaxLevel);
+                    } else if (itemRow != null && itemRow[index] != NO_LIMIT) {
+                        row[index] = Math.min(caps[index], itemRow[index]);
+                    } else {
+                        row[index] = caps[index];
+                    }
+                }
+                materialCaps[ordinal] = row;
+            }
+            tierMaterialCaps[tier] = materialCaps;
+        }
+
+        return new EnchantPolicy(
+                name,
+                registry,
+                baseMaxLevel,
+                absoluteMaxLevel,
+                source(profile, config, "conflicts.enforce").getBoolean("conflicts.enforce", false),
+                disabled,
+                generalCaps,
+                tierCaps,
+                tierMaterialCaps);
+    }
+
+    private static int[] toRow(Map<String, Integer> limits, EnchantmentRegistry registry) {
+        int[] row = new int[registry.size()];
+        Arrays.fill(row, NO_LIMIT);
+        for (Map.Entry<String, Integer> entry : limits.entrySet()) {
+            int index = registry.indexOf(entry.getKey());
+            if (index >= 0) {
+                row[index] = entry.getValue();
+            }
+        }
+        return row;
+    }
+
+    private static CapFormula parseFormula(String formula, Logger logger) {
+        if (formula == null || formula.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return CapFormula.parse(formula);
+        } catch (IllegalArgumentException e) {
+            if (logger != null) {
+                logger.warning("enchant-formulas: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private static ConfigurationSection source(ConfigurationSection profile, ConfigurationSection config, String path) {
+        return profile != null && profile.contains(path) ? profile : config;
+    }
+
+    /**
+     * Gets the profile name, "global" for the global policy
+     */
+    public String getName() {
+        return name;
+    }
+
+    public EnchantmentRegistry getRegistry() {
+        return registry;
+    }
+
+    public int getBaseMaxLevel() {
+        return baseMaxLevel;
+    }
+
+    public int getAbsoluteMaxLevel() {
+        return absoluteMaxLevel;
+    }
+
+    public boolean isEnforceConflicts() {
+        return enforceConflicts;
+    }
+
+    public boolean isDisabled(int index) {
+        return index >= 0 && EnchantmentRegistry.isSet(disabled, index);
+    }
+
+    /**
+     * Checks whether any enchantment in the mask is disabled
+     */
+    public boolean anyDisabled(long[] mask) {
+        for (int i = 0; i < disabled.length; i++) {
+            if ((disabled[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of tiers in the decision table
+     */
+    public int getTierCount() {
+        return generalCaps.length;
+    }
+
+    /**
+     * Hashes everything {@link #correct} reads for one tier: the registry, the disabled enchantments, whether
+     * conflicts are enforced, and the tier's caps and material rows. Settings that do not change corrections
+     * do not change the value, and equal policies give equal values across restarts.
+     */
+    public int fingerprint(int tier) {
+        int hash = registry.fingerprint();
+        hash = 31 * hash + Arrays.hashCode(disabled);
+        hash = 31 * hash + (enforceConflicts ? 1 : 0);
+        hash = 31 * hash + Arrays.hashCode(tierCaps[tier]);
+        int[][] materialCaps = tierMaterialCaps[tier];
+        for (int ordinal = 0; ordinal < materialCaps.length; ordinal++) {
+            if (materialCaps[ordinal] != null) {
+                hash = 31 * (31 * hash + ordinal) + Arrays.hashCode(materialCaps[ordinal]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the maximum level for an enchantment considering all limits
+     * @param tier The player's tier (see {@link LimitGroups})
+     * @param index The enchantment index, or -1 for the general limit
+     * @param itemType The item type, or null for the general limit
+     */
+    public int getMaxLevel(int tier, int index, Material itemType) {
+        if (index < 0) {
+            return generalCaps[tier];
+        }
+        if (itemType != null) {
+            int[] row = tierMaterialCaps[tier][itemType.ordinal()];
+            if (row != null) {
+                return row[index];
+            }
+        }
+        return tierCaps[tier][index];
+    }
+
+    /**
+     * Corrects the enchantments of an item nobody owns against a fixed tier; see
+     * {@link #correct(int, Material, int[], int[], boolean, boolean, EnchantmentChange.Reason[])}
+     */
+    public boolean correct(int tier, Material itemType, int[] levels) {
+        return correct(tier, itemType, levels, null, false, false, null);
+    }
+
+    /**
+     * Corrects a set of enchantment levels without touching any item: disabled server enchantments are removed,
+     * levels are capped, and when conflicts are enforced an enchantment is removed if it conflicts with one that
+     * is kept and comes earlier in registry order. Custom enchantments only take part in the conflict check.
+     * This is the only place these rules are applied; {@link EnchantmentEnforcer} plans its changes with it for
+     * players and for items nobody owns.
+     * @param levels Levels by enchantment index, 0 for absent; corrected in place
+     * @param overrides Personal caps from {@link PlayerOverrides#get}, or null
+     * @param reasons Receives why each changed index was changed, or null; other entries are left alone
+     * @return true if any level changed
+     */
+    public boolean correct(int tier, Material itemType, int[] levels, int[] overrides, boolean bypassDisabled,
+                           boolean bypassConflicts, EnchantmentChange.Reason[] reasons) {
+        boolean changed = false;
+        int present = 0;
+        for (int index = 0; index < registry.serverCount(); index++) {
+            int level = levels[index];
+            if (level <= 0) {
+                continue;
+            }
+            if (!bypassDisabled && isDisabled(index)) {
+                levels[index] = 0;
+                changed = true;
+                if (reasons != null) {
+                    reasons[index] = EnchantmentChange.Reason.DISABLED;
+                }
+                continue;
+            }
+            int maxLevel = Math.max(0, PlayerOverrides.apply(overrides, index, getMaxLevel(tier, index, itemType)));
+            if (level > maxLevel) {
+                levels[index] = maxLevel;
+                changed = true;
+                if (reasons != null) {
+                    reasons[index] = EnchantmentChange.Reason.LEVEL_LIMIT;
+                }
+            }
+            if (levels[index] > 0) {
+                present++;
+            }
+        }
+        if (!enforceConflicts || bypassConflicts || (present < 2 && !registry.hasCustom())) {
+            return changed;
+        }
+
+        long[] kept = new long[registry.words()];
+        for (int index = 0; index < levels.length; index++) {
+            if (levels[index] <= 0) {
+                continue;
+            }
+            if (registry.conflictsWithAny(index, kept)) {
+                levels[index] = 0;
+                changed = true;
+                if (reasons != null) {
+                    reasons[index] = EnchantmentChange.Reason.CONFLICT;
+                }
+            } else {
+                EnchantmentRegistry.set(kept, index);
+            }
+        }
+        return changed;
+    }
+}
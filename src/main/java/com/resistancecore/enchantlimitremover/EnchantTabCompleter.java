@@ -7,7 +7,6 @@ import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +41,11 @@ public class EnchantTabCompleter implements TabCompleter {
             subCommands.add("list");
             subCommands.add("info");
             subCommands.add("reload");
+            subCommands.add("migrate");
+            subCommands.add("audit");
+            subCommands.add("analytics");
+            subCommands.add("override");
+            subCommands.add("balance");
 
             return subCommands.stream()
                 .filter(cmd -> cmd.toLowerCase().startsWith(args[0].toLowerCase()))
@@ -52,13 +56,13 @@ public class EnchantTabCompleter implements TabCompleter {
             // Second argument
             if (args[0].equalsIgnoreCase("add") || args[0].equalsIgnoreCase("remove")) {
                 // Get available enchantments
-                List<String> disabledEnchants = plugin.getConfig().getStringList("disabled-enchantments");
+                EnchantPolicy policy = sender instanceof Player ? plugin.getPolicy(((Player) sender).getWorld()) : plugin.getPolicy();
+                EnchantmentRegistry registry = policy.getRegistry();
                 
-                for (Enchantment enchant : Enchantment.values()) {
-                    String enchantName = enchant.getKey().getKey().toLowerCase();
-                    
+                // Server and custom enchantments share the registry index space
+                for (int index = 0; index < registry.size(); index++) {
                     // For 'add' command, handle disabled enchantments based on permission
-                    if (args[0].equalsIgnoreCase("add") && disabledEnchants.contains(enchantName)) {
+                    if (args[0].equalsIgnoreCase("add") && policy.isDisabled(index)) {
                         // Only suggest if player has bypass permission
                         if (sender instanceof Player) {
                             Player player = (Player) sender;
@@ -70,7 +74,7 @@ public class EnchantTabCompleter implements TabCompleter {
                         }
                     }
                     
-                    completions.add(enchantName);
+                    completions.add(registry.getName(index));
                 }
 
                 return completions.stream()
@@ -80,6 +84,57 @@ public class EnchantTabCompleter implements TabCompleter {
             }
         }
 
+        if (args[0].equalsIgnoreCase("override")) {
+            if (args.length == 2) {
+                for (Player online : plugin.getServer().getOnlinePlayers()) {
+                    completions.add(online.getName());
+                }
+            } else if (args.length == 3) {
+                completions.add(PlayerOverrides.ALL);
+                EnchantmentRegistry registry = plugin.getPolicy().getRegistry();
+                for (int index = 0; index < registry.size(); index++) {
+                    completions.add(registry.getName(index));
+                }
+            } else if (args.length == 5) {
+                completions.addAll(List.of("30m", "1h", "12h", "1d", "7d"));
+            }
+            String prefix = args[args.length - 1].toLowerCase();
+            return completions.stream()
+                .filter(value -> value.toLowerCase().startsWith(prefix))
+                .collect(Collectors.toList());
+        }
+
+        // Target and slot of add, remove and clear on other players
+        int target = args[0].equalsIgnoreCase("add") ? 4 : args[0].equalsIgnoreCase("remove") ? 3 : args[0].equalsIgnoreCase("clear") ? 2 : -1;
+        if (target > 0 && args.length >= target) {
+            if (args.length == target) {
+                completions.addAll(List.of("@a", "@p", "@r", "@s"));
+                for (Player online : plugin.getServer().getOnlinePlayers()) {
+                    completions.add(online.getName());
+                }
+            } else if (args.length == target + 1) {
+                completions.addAll(List.of("hand", "offhand", "head", "chest", "legs", "feet", "inventory"));
+            }
+            String prefix = args[args.length - 1].toLowerCase();
+            return completions.stream()
+                .filter(value -> value.toLowerCase().startsWith(prefix))
+                .collect(Collectors.toList());
+        }
+
+        if (args[0].equalsIgnoreCase("balance")) {
+            if (args.length == 2) {
+                for (Player online : plugin.getServer().getOnlinePlayers()) {
+                    completions.add(online.getName());
+                }
+            } else if (args.length == 3) {
+                completions.addAll(List.of("give", "take", "set"));
+            }
+            String prefix = args[args.length - 1].toLowerCase();
+            return completions.stream()
+                .filter(value -> value.toLowerCase().startsWith(prefix))
+                .collect(Collectors.toList());
+        }
+
         if (args.length == 3 && args[0].equalsIgnoreCase("add")) {
             // Third argument for 'add' command - level suggestions
             if (!(sender instanceof Player)) {
@@ -91,13 +146,9 @@ public class EnchantTabCompleter implements TabCompleter {
             ItemStack item = player.getInventory().getItemInMainHand();
             
             // Get the enchantment
-            Enchantment enchantment = null;
-            try {
-                enchantment = Enchantment.getByKey(NamespacedKey.minecraft(args[1].toLowerCase()));
-            } catch (Exception e) {
-                // Invalid enchantment, provide basic suggestions
-                return getBasicLevelSuggestions(args[2]);
-            }
+            EnchantmentRegistry registry = plugin.getPolicy().getRegistry();
+            int enchantIndex = registry.indexOf(args[1]);
+            Enchantment enchantment = enchantIndex >= 0 ? registry.getEnchantment(enchantIndex) : null;
             
             if (enchantment == null) {
                 return getBasicLevelSuggestions(args[2]);
@@ -105,7 +156,7 @@ public class EnchantTabCompleter implements TabCompleter {
             
             // Get max level for this player, enchantment, and item
             Material itemType = (item != null && !item.getType().isAir()) ? item.getType() : Material.DIAMOND_SWORD;
-            int maxLevel = getMaxLevelForPlayer(player, enchantment, itemType);
+            int maxLevel = plugin.getMaxLevel(player, enchantment, itemType);
             int vanillaMax = enchantment.getMaxLevel();
             
             plugin.debugLog("Tab completion - Max level for " + player.getName() + ": " + maxLevel);
@@ -169,39 +220,4 @@ public class EnchantTabCompleter implements TabCompleter {
             .sorted((a, b) -> Integer.compare(Integer.parseInt(a), Integer.parseInt(b)))
             .collect(Collectors.toList());
     }
-    
-    /**
-     * Gets the maximum enchantment level for a player considering all limits
-     * (Duplicated from command class for tab completion)
-     */
-    private int getMaxLevelForPlayer(Player player, Enchantment enchantment, Material itemType) {
-        // Start with base config level
-        int maxLevel = plugin.getConfig().getInt("max-enchant-level", 10);
-        
-        // Apply permission-based level (if higher)
-        if (plugin.getConfig().getBoolean("use-permission-levels", true)) {
-            int permissionLevel = plugin.getCachedPermissionLevel(player);
-            if (permissionLevel > 0) {
-                maxLevel = Math.max(maxLevel, permissionLevel);
-            }
-        }
-        
-        // Apply item-specific limits (if lower)
-        if (plugin.getConfig().getBoolean("item-specific-limits.enabled", false) && enchantment != null && itemType != null) {
-            String itemKey = itemType.name();
-            String enchantKey = enchantment.getKey().getKey();
-            String configPath = "item-specific-limits.items." + itemKey + "." + enchantKey;
-            
-            if (plugin.getConfig().contains(configPath)) {
-                int itemSpecificLimit = plugin.getConfig().getInt(configPath, maxLevel);
-                maxLevel = Math.min(maxLevel, itemSpecificLimit);
-            }
-        }
-        
-        // Apply absolute maximum limit (security)
-        int absoluteMax = plugin.getConfig().getInt("security.absolute-max-level", 1000);
-        maxLevel = Math.min(maxLevel, absoluteMax);
-        
-        return maxLevel;
-    }
-}
\ No newline at end of file
+}
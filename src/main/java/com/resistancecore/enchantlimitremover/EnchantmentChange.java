@@ -0,0 +1,76 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.enchantments.Enchantment;
+
+/**
+ * One enchantment change made when an item is corrected
+ */
+public class EnchantmentChange {
+
+    /**
+     * Why the enchantment is changed
+     */
+    public enum Reason {
+        DISABLED, LEVEL_LIMIT, CONFLICT
+    }
+
+    private final Enchantment enchantment;
+    private final int index;
+    private final String name;
+    private final int oldLevel;
+    private final int newLevel;
+    private final Reason reason;
+
+    public EnchantmentChange(Enchantment enchantment, String name, int oldLevel, int newLevel, Reason reason) {
+        this(enchantment, -1, name, oldLevel, newLevel, reason);
+    }
+
+    EnchantmentChange(Enchantment enchantment, int index, String name, int oldLevel, int newLevel, Reason reason) {
+        this.enchantment = enchantment;
+        this.index = index;
+        this.name = name;
+        this.oldLevel = oldLevel;
+        this.newLevel = newLevel;
+        this.reason = reason;
+    }
+
+    /**
+     * Gets the server enchantment, or null for custom enchantments
+     */
+    public Enchantment getEnchantment() {
+        return enchantment;
+    }
+
+    /**
+     * Gets the registry index the change was planned for, -1 if unknown
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the enchantment name, the id for custom enchantments
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getOldLevel() {
+        return oldLevel;
+    }
+
+    /**
+     * Gets the level after the change, 0 if the enchantment is removed
+     */
+    public int getNewLevel() {
+        return newLevel;
+    }
+
+    public boolean isRemoved() {
+        return newLevel <= 0;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
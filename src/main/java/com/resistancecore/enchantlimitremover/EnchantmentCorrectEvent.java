@@ -0,0 +1,67 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Called before the enchantments of an item are corrected, with every change that will be made.
+ * Cancelling it leaves the item untouched. Only fired when a listener is registered.
+ */
+public class EnchantmentCorrectEvent extends PlayerEvent implements Cancellable {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final ItemStack item;
+    private final List<EnchantmentChange> changes;
+    private boolean cancelled;
+
+    public EnchantmentCorrectEvent(Player player, ItemStack item, List<EnchantmentChange> changes) {
+        super(player);
+        this.item = item;
+        this.changes = changes;
+    }
+
+    /**
+     * Gets the item about to be corrected; for enchanting tables this is the item being enchanted
+     */
+    public ItemStack getItem() {
+        return item;
+    }
+
+    /**
+     * Gets the planned changes (unmodifiable)
+     */
+    public List<EnchantmentChange> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * Checks whether any plugin listens to this event, so callers can skip building it
+     */
+    static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+}
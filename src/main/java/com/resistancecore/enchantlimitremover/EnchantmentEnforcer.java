@@ -0,0 +1,319 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks items against the compiled {@link EnchantPolicy} and fixes what exceeds the player's limits.
+ * Only used from the main thread; the bitsets used per item are reused between calls.
+ * <p>
+ * Most stacks moved around carry no data at all, so every check starts with {@link #mayCarryEnchantments},
+ * which only looks at whether the stack has any components. Enchantments are read from the stack without
+ * cloning its meta; meta is only copied for books, custom enchantments or when something has to change.
+ */
+public class EnchantmentEnforcer {
+    private final EnchantLimitRemover plugin;
+    private long[] present = new long[1];
+    private int[] levels = new int[0];
+    private int[] original = new int[0];
+    private EnchantmentChange.Reason[] reasons = new EnchantmentChange.Reason[0];
+    private List<EnchantmentsCorrectedEvent.Correction> batch;
+
+    public EnchantmentEnforcer(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Checks whether an item can have enchantments at all; false for empty slots and stacks without any data
+     */
+    public static boolean mayCarryEnchantments(ItemStack item) {
+        return item != null && item.hasItemMeta();
+    }
+
+    /**
+     * Checks whether an item has vanilla enchantments, either applied or stored in an enchanted book
+     */
+    public static boolean hasEnchantments(ItemStack item) {
+        if (!mayCarryEnchantments(item)) {
+            return false;
+        }
+        if (item.getType() == Material.ENCHANTED_BOOK) {
+            ItemMeta meta = item.getItemMeta();
+            return meta instanceof EnchantmentStorageMeta && ((EnchantmentStorageMeta) meta).hasStoredEnchants();
+        }
+        return !item.getEnchantments().isEmpty();
+    }
+
+    private static String itemName(Material type) {
+        return type.name().toLowerCase().replace("_", " ");
+    }
+
+    private void ensureCapacity(EnchantmentRegistry registry) {
+        if (present.length != registry.words()) {
+            present = new long[registry.words()];
+        }
+        if (levels.length != registry.size()) {
+            levels = new int[registry.size()];
+            original = new int[registry.size()];
+            reasons = new EnchantmentChange.Reason[registry.size()];
+        }
+    }
+
+    private String getConfigMessage(String key, String defaultMessage) {
+        return plugin.getConfig().getString("messages." + key, defaultMessage)
+                .replace("{prefix}", plugin.getConfig().getString("messages.prefix", "§6[§eELR§6] "));
+    }
+
+    /**
+     * Checks and fixes enchantment levels on an item according to player's limits.
+     * The changes are planned once, shown to {@link EnchantmentCorrectEvent} listeners, and applied exactly as
+     * planned, so the event always describes what happens to the item.
+     * @param player The player who owns/will own the item
+     * @param item The item to check and fix
+     * @return true if any enchantments were modified, false otherwise
+     */
+    public boolean checkAndFixEnchantments(Player player, ItemStack item) {
+        if (!mayCarryEnchantments(item)) {
+            return false;
+        }
+
+        EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+        ItemMeta meta = item.getType() == Material.ENCHANTED_BOOK ? item.getItemMeta() : null;
+        List<EnchantmentChange> changes = plan(policy, plugin.getTier(player), item, meta, player);
+        if (changes.isEmpty()) {
+            return false;
+        }
+
+        if (EnchantmentCorrectEvent.hasListeners()) {
+            EnchantmentCorrectEvent event = new EnchantmentCorrectEvent(player, item, changes);
+            plugin.getServer().getPluginManager().callEvent(event);
+            if (event.isCancelled()) {
+                return false;
+            }
+        }
+
+        apply(policy.getRegistry(), item, meta, changes, player);
+        if (batch != null || EnchantmentsCorrectedEvent.hasListeners()) {
+            corrected(player, new EnchantmentsCorrectedEvent.Correction(item, changes));
+        }
+        return true;
+    }
+
+    /**
+     * Works out the changes an item needs without touching it. Levels are read into an array indexed like the
+     * registry and corrected by {@link EnchantPolicy#correct}; every index whose level changed becomes one change,
+     * in registry order. Enchantments missing from the registry, added since it was built, only have the general
+     * limit. Bypass permissions are only looked up when they could matter.
+     * @param meta The item's meta if already copied, or null
+     * @param player The owner, whose bypass permissions and overrides apply, or null for items nobody owns
+     */
+    private List<EnchantmentChange> plan(EnchantPolicy policy, int tier, ItemStack item, ItemMeta meta, Player player) {
+        EnchantmentRegistry registry = policy.getRegistry();
+        Map<Enchantment, Integer> enchantments = meta instanceof EnchantmentStorageMeta
+                ? ((EnchantmentStorageMeta) meta).getStoredEnchants()
+                : item.getEnchantments();
+        boolean customConflicts = policy.isEnforceConflicts() && registry.hasCustom();
+        if (enchantments.isEmpty() && !customConflicts) {
+            return Collections.emptyList();
+        }
+
+        ensureCapacity(registry);
+        Arrays.fill(present, 0L);
+        Arrays.fill(levels, 0);
+        List<EnchantmentChange> changes = null;
+        for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
+            int index = registry.indexOf(entry.getKey());
+            if (index >= 0) {
+                levels[index] = entry.getValue();
+                EnchantmentRegistry.set(present, index);
+                continue;
+            }
+            int maxLevel = Math.max(0, policy.getMaxLevel(tier, -1, item.getType()));
+            if (entry.getValue() > maxLevel) {
+                changes = changes != null ? changes : new ArrayList<>();
+                changes.add(new EnchantmentChange(entry.getKey(), -1, entry.getKey().getKey().getKey(), entry.getValue(),
+                        maxLevel, EnchantmentChange.Reason.LEVEL_LIMIT));
+            }
+        }
+
+        boolean bypassDisabled = player != null && policy.anyDisabled(present) && player.hasPermission("elr.bypass.disabled");
+        boolean bypassConflicts = player != null && policy.isEnforceConflicts() && player.hasPermission("elr.bypass.conflicts");
+        if (customConflicts && !bypassConflicts) {
+            ItemMeta customMeta = meta != null ? meta : item.getItemMeta();
+            CustomEnchantments customEnchantments = plugin.getCustomEnchantments();
+            for (int index = registry.serverCount(); index < registry.size(); index++) {
+                levels[index] = customEnchantments.getLevel(customMeta, registry.getCustom(index));
+            }
+        }
+
+        System.arraycopy(levels, 0, original, 0, levels.length);
+        int[] overrides = player != null ? plugin.getOverrides().get(player) : null;
+        if (policy.correct(tier, item.getType(), levels, overrides, bypassDisabled, bypassConflicts, reasons)) {
+            for (int index = 0; index < levels.length; index++) {
+                if (levels[index] != original[index]) {
+                    changes = changes != null ? changes : new ArrayList<>();
+                    changes.add(new EnchantmentChange(registry.isCustom(index) ? null : registry.getEnchantment(index), index,
+                            registry.getName(index), original[index], levels[index], reasons[index]));
+                }
+            }
+        }
+        return changes == null ? Collections.<EnchantmentChange>emptyList() : Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Applies planned changes to an item, recording them in analytics and notifying the owner
+     * @param meta The item's meta if already copied, or null
+     * @param player The owner, or null for items nobody owns
+     */
+    private void apply(EnchantmentRegistry registry, ItemStack item, ItemMeta meta, List<EnchantmentChange> changes, Player player) {
+        if (meta == null) {
+            meta = item.getItemMeta();
+        }
+        boolean book = meta instanceof EnchantmentStorageMeta;
+        EnchantAnalytics analytics = plugin.getAnalytics();
+        boolean showMessages = player != null && plugin.getConfig().getBoolean("show-messages", true);
+        String itemName = itemName(item.getType());
+        for (EnchantmentChange change : changes) {
+            int index = change.getIndex();
+            if (change.getEnchantment() != null) {
+                setLevel(meta, book, change.getEnchantment(), change.getNewLevel());
+            } else {
+                plugin.getCustomEnchantments().removeFrom(meta, registry.getCustom(index));
+            }
+
+            String message;
+            switch (change.getReason()) {
+                case DISABLED:
+                    analytics.observe(index, change.getOldLevel(), item.getType());
+                    analytics.fix(EnchantAnalytics.Fix.DISABLED_REMOVED, index);
+                    message = showMessages ? getConfigMessage("enchant-disabled-removed", "§6Disabled enchantment §e{enchantment} §6was removed from your {item}!") : null;
+                    break;
+                case LEVEL_LIMIT:
+                    analytics.observe(index, change.getOldLevel(), item.getType());
+                    analytics.fix(EnchantAnalytics.Fix.LEVEL_REDUCED, index);
+                    message = showMessages ? getConfigMessage("enchant-level-reduced", "§6Enchantment §e{enchantment} §6level was reduced from §c{old-level} §6to §a{new-level} §6on your {item}!") : null;
+                    break;
+                default:
+                    analytics.fix(EnchantAnalytics.Fix.CONFLICT_REMOVED, index);
+                    message = showMessages ? getConfigMessage("enchant-conflict-removed", "§6Conflicting enchantment §e{enchantment} §6was removed from your {item}!") : null;
+                    break;
+            }
+            plugin.debugLog("Changed enchantment " + change.getName() + " from level " + change.getOldLevel() + " to " + change.getNewLevel()
+                    + " (" + change.getReason().name().toLowerCase() + ") on " + itemName + (player != null ? " for " + player.getName() : ""));
+            if (message != null) {
+                plugin.getNotifications().add(player, message
+                        .replace("{enchantment}", change.getName())
+                        .replace("{old-level}", String.valueOf(change.getOldLevel()))
+                        .replace("{new-level}", String.valueOf(change.getNewLevel()))
+                        .replace("{item}", itemName));
+            }
+        }
+        item.setItemMeta(meta);
+    }
+
+    /**
+     * Reports a correction, batched while a whole inventory is being checked
+     */
+    private void corrected(Player player, EnchantmentsCorrectedEvent.Correction correction) {
+        if (batch != null) {
+            batch.add(correction);
+        } else if (EnchantmentsCorrectedEvent.hasListeners()) {
+            plugin.getServer().getPluginManager().callEvent(new EnchantmentsCorrectedEvent(player, Collections.singletonList(correction)));
+        }
+    }
+
+    /**
+     * Checks an item against the same rules as {@link #checkAndFixEnchantments} without changing it
+     * @return true if the item would be left unchanged
+     */
+    public boolean isCompliant(Player player, ItemStack item) {
+        if (!mayCarryEnchantments(item)) {
+            return true;
+        }
+        EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+        ItemMeta meta = item.getType() == Material.ENCHANTED_BOOK ? item.getItemMeta() : null;
+        return plan(policy, plugin.getTier(player), item, meta, player).isEmpty();
+    }
+
+    /**
+     * Fixes an item nobody owns, such as entity equipment, against a fixed tier.
+     * No bypass permissions, overrides, messages or events apply; otherwise the changes are planned and applied
+     * like {@link #checkAndFixEnchantments} does.
+     * @return true if any enchantments were modified
+     */
+    public boolean fixUnowned(EnchantPolicy policy, int tier, ItemStack item) {
+        if (!mayCarryEnchantments(item)) {
+            return false;
+        }
+        ItemMeta meta = item.getType() == Material.ENCHANTED_BOOK ? item.getItemMeta() : null;
+        List<EnchantmentChange> changes = plan(policy, tier, item, meta, null);
+        if (changes.isEmpty()) {
+            return false;
+        }
+        apply(policy.getRegistry(), item, meta, changes, null);
+        return true;
+    }
+
+    /**
+     * Sets an enchantment level in item or book meta, removing the enchantment for levels of 0 or less
+     */
+    private static void setLevel(ItemMeta meta, boolean book, Enchantment enchantment, int level) {
+        if (book) {
+            ((EnchantmentStorageMeta) meta).removeStoredEnchant(enchantment);
+            if (level > 0) {
+                ((EnchantmentStorageMeta) meta).addStoredEnchant(enchantment, level, true);
+            }
+        } else {
+            meta.removeEnchant(enchantment);
+            if (level > 0) {
+                meta.addEnchant(enchantment, level, true);
+            }
+        }
+    }
+
+    /**
+     * Checks all items in player's inventory and fixes enchantments that exceed limits
+     */
+    public void checkAndFixPlayerInventory(Player player) {
+        if (!player.hasPermission("elr.use")) {
+            return;
+        }
+
+        plugin.debugLog("Checking inventory for player: " + player.getName());
+
+        boolean anyModified = false;
+        batch = EnchantmentsCorrectedEvent.hasListeners() ? new ArrayList<>() : null;
+
+        // Player inventory contents include the armor and offhand slots
+        for (ItemStack item : player.getInventory().getContents()) {
+            if (checkAndFixEnchantments(player, item)) {
+                anyModified = true;
+            }
+        }
+
+        // All corrections of this inventory in one event
+        List<EnchantmentsCorrectedEvent.Correction> corrections = batch;
+        batch = null;
+        if (corrections != null && !corrections.isEmpty()) {
+            plugin.getServer().getPluginManager().callEvent(new EnchantmentsCorrectedEvent(player, Collections.unmodifiableList(corrections)));
+        }
+
+        if (anyModified) {
+            plugin.debugLog("Fixed enchantments in inventory for player: " + player.getName());
+            if (plugin.getConfig().getBoolean("show-messages", true)) {
+                String message = getConfigMessage("inventory-fixed", "§6Some enchantments in your inventory were adjusted to match your limits!");
+                plugin.getNotifications().add(player, message);
+            }
+        }
+    }
+}
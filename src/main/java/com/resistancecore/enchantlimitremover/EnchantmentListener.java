@@ -1,232 +1,53 @@
 package com.resistancecore.enchantlimitremover;
 
+import io.papermc.paper.event.server.ServerResourcesReloadedEvent;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.enchantment.EnchantItemEvent;
-import org.bukkit.event.inventory.PrepareAnvilEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerPickupItemEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.EnchantmentStorageMeta;
-import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 public class EnchantmentListener implements Listener {
     private final EnchantLimitRemover plugin;
+    // The enchanting table event vanilla is left to handle and still has to be charged for once it goes through
+    private EnchantItemEvent pendingCharge;
 
     public EnchantmentListener(EnchantLimitRemover plugin) {
         this.plugin = plugin;
     }
     
-    /**
-     * Gets the maximum enchantment level for a player considering all limits
-     */
-    private int getMaxLevelForPlayer(Player player, Enchantment enchantment, Material itemType) {
-        // Start with base config level
-        int maxLevel = plugin.getConfig().getInt("max-enchant-level", 10);
-        
-        plugin.debugLog("Base max level from config: " + maxLevel);
-        
-        // Apply permission-based level (if higher)
-        if (plugin.getConfig().getBoolean("use-permission-levels", true)) {
-            int permissionLevel = plugin.getCachedPermissionLevel(player);
-            if (permissionLevel > 0) {
-                maxLevel = Math.max(maxLevel, permissionLevel);
-                plugin.debugLog("Applied permission level " + permissionLevel + ", new max: " + maxLevel);
-            }
-        }
-        
-        // Apply item-specific limits (if lower)
-        if (plugin.getConfig().getBoolean("item-specific-limits.enabled", false) && enchantment != null && itemType != null) {
-            String itemKey = itemType.name();
-            String enchantKey = enchantment.getKey().getKey();
-            String configPath = "item-specific-limits.items." + itemKey + "." + enchantKey;
-            
-            if (plugin.getConfig().contains(configPath)) {
-                int itemSpecificLimit = plugin.getConfig().getInt(configPath, maxLevel);
-                maxLevel = Math.min(maxLevel, itemSpecificLimit);
-                plugin.debugLog("Applied item-specific limit for " + itemKey + "." + enchantKey + ": " + itemSpecificLimit + ", new max: " + maxLevel);
-            }
-        }
-        
-        // Apply absolute maximum limit (security)
-        int absoluteMax = plugin.getConfig().getInt("security.absolute-max-level", 1000);
-        maxLevel = Math.min(maxLevel, absoluteMax);
-        
-        plugin.debugLog("Final max level for " + player.getName() + ": " + maxLevel);
-        
-        return maxLevel;
-    }
-    
     private String getConfigMessage(String key, String defaultMessage) {
         return plugin.getConfig().getString("messages." + key, defaultMessage)
                 .replace("{prefix}", plugin.getConfig().getString("messages.prefix", "§6[§eELR§6] "));
     }
     
     /**
-     * Checks and fixes enchantment levels on an item according to player's limits
-     * @param player The player who owns/will own the item
-     * @param item The item to check and fix
-     * @return true if any enchantments were modified, false otherwise
-     */
-    private boolean checkAndFixEnchantments(Player player, ItemStack item) {
-        if (item == null || item.getType().isAir()) {
-            return false;
-        }
-        
-        boolean modified = false;
-        boolean showMessages = plugin.getConfig().getBoolean("show-messages", true);
-        List<String> disabledEnchants = plugin.getConfig().getStringList("disabled-enchantments");
-        
-        if (item.getType() == Material.ENCHANTED_BOOK) {
-            // Handle enchanted books
-            EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
-            if (meta != null && meta.hasStoredEnchants()) {
-                Map<Enchantment, Integer> storedEnchants = new HashMap<>(meta.getStoredEnchants());
-                
-                for (Map.Entry<Enchantment, Integer> entry : storedEnchants.entrySet()) {
-                    Enchantment enchantment = entry.getKey();
-                    int currentLevel = entry.getValue();
-                    
-                    // Check if enchantment is disabled
-                    if (disabledEnchants.contains(enchantment.getKey().getKey().toLowerCase())) {
-                        if (!player.hasPermission("elr.bypass.disabled")) {
-                            meta.removeStoredEnchant(enchantment);
-                            modified = true;
-                            plugin.debugLog("Removed disabled enchantment " + enchantment.getKey().getKey() + " from enchanted book for " + player.getName());
-                            if (showMessages) {
-                                String message = getConfigMessage("enchant-disabled-removed", "§6Disabled enchantment §e{enchantment} §6was removed from your enchanted book!")
-                                        .replace("{enchantment}", enchantment.getKey().getKey());
-                                player.sendMessage(message);
-                            }
-                            continue;
-                        }
-                    }
-                    
-                    // Check level limits
-                    int maxLevel = getMaxLevelForPlayer(player, enchantment, item.getType());
-                    if (currentLevel > maxLevel) {
-                        meta.removeStoredEnchant(enchantment);
-                        if (maxLevel > 0) {
-                            meta.addStoredEnchant(enchantment, maxLevel, true);
-                        }
-                        modified = true;
-                        plugin.debugLog("Adjusted enchantment " + enchantment.getKey().getKey() + " from level " + currentLevel + " to " + maxLevel + " on enchanted book for " + player.getName());
-                        if (showMessages) {
-                            String message = getConfigMessage("enchant-level-reduced", "§6Enchantment §e{enchantment} §6level was reduced from §c{old-level} §6to §a{new-level} §6on your enchanted book!")
-                                    .replace("{enchantment}", enchantment.getKey().getKey())
-                                    .replace("{old-level}", String.valueOf(currentLevel))
-                                    .replace("{new-level}", String.valueOf(maxLevel));
-                            player.sendMessage(message);
-                        }
-                    }
-                }
-                
-                if (modified) {
-                    item.setItemMeta(meta);
-                }
-            }
-        } else {
-            // Handle regular items
-            Map<Enchantment, Integer> enchantments = new HashMap<>(item.getEnchantments());
-            
-            for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
-                Enchantment enchantment = entry.getKey();
-                int currentLevel = entry.getValue();
-                
-                // Check if enchantment is disabled
-                if (disabledEnchants.contains(enchantment.getKey().getKey().toLowerCase())) {
-                    if (!player.hasPermission("elr.bypass.disabled")) {
-                        item.removeEnchantment(enchantment);
-                        modified = true;
-                        plugin.debugLog("Removed disabled enchantment " + enchantment.getKey().getKey() + " from " + item.getType() + " for " + player.getName());
-                        if (showMessages) {
-                            String message = getConfigMessage("enchant-disabled-removed", "§6Disabled enchantment §e{enchantment} §6was removed from your {item}!")
-                                    .replace("{enchantment}", enchantment.getKey().getKey())
-                                    .replace("{item}", item.getType().name().toLowerCase().replace("_", " "));
-                            player.sendMessage(message);
-                        }
-                        continue;
-                    }
-                }
-                
-                // Check level limits
-                int maxLevel = getMaxLevelForPlayer(player, enchantment, item.getType());
-                if (currentLevel > maxLevel) {
-                    item.removeEnchantment(enchantment);
-                    if (maxLevel > 0) {
-                        item.addUnsafeEnchantment(enchantment, maxLevel);
-                    }
-                    modified = true;
-                    plugin.debugLog("Adjusted enchantment " + enchantment.getKey().getKey() + " from level " + currentLevel + " to " + maxLevel + " on " + item.getType() + " for " + player.getName());
-                    if (showMessages) {
-                        String message = getConfigMessage("enchant-level-reduced", "§6Enchantment §e{enchantment} §6level was reduced from §c{old-level} §6to §a{new-level} §6on your {item}!")
-                                .replace("{enchantment}", enchantment.getKey().getKey())
-                                .replace("{old-level}", String.valueOf(currentLevel))
-                                .replace("{new-level}", String.valueOf(maxLevel))
-                                .replace("{item}", item.getType().name().toLowerCase().replace("_", " "));
-                        player.sendMessage(message);
-                    }
-                }
-            }
-        }
-        
-        return modified;
-    }
-    
-    /**
-     * Checks all items in player's inventory and fixes enchantments that exceed limits
+     * Applies limits to enchanting table results. When economy.charge-enchanting-table is set, the player is only
+     * charged once the result is certain: here, after this handler cancels the event to apply the corrected
+     * enchantments itself, or in {@link #onEnchantItemCharge} if vanilla applies them. A table enchant another
+     * plugin cancels, or one this handler leaves to vanilla for an {@link EnchantmentCorrectEvent} veto and that
+     * is cancelled later, is never charged.
      */
-    private void checkAndFixPlayerInventory(Player player) {
-        if (!player.hasPermission("elr.use")) {
-            return;
-        }
-        
-        plugin.debugLog("Checking inventory for player: " + player.getName());
-        
-        boolean anyModified = false;
-        
-        // Check main inventory
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (checkAndFixEnchantments(player, item)) {
-                anyModified = true;
-            }
-        }
-        
-        // Check armor slots
-        for (ItemStack item : player.getInventory().getArmorContents()) {
-            if (checkAndFixEnchantments(player, item)) {
-                anyModified = true;
-            }
-        }
-        
-        // Check offhand
-        ItemStack offhand = player.getInventory().getItemInOffHand();
-        if (checkAndFixEnchantments(player, offhand)) {
-            anyModified = true;
-        }
-        
-        if (anyModified) {
-            plugin.debugLog("Fixed enchantments in inventory for player: " + player.getName());
-            if (plugin.getConfig().getBoolean("show-messages", true)) {
-                String message = getConfigMessage("inventory-fixed", "§6Some enchantments in your inventory were adjusted to match your limits!");
-                player.sendMessage(message);
-            }
-        }
-    }
-    
     @EventHandler
     public void onEnchantItem(EnchantItemEvent event) {
         Player player = event.getEnchanter();
+        pendingCharge = null;
         
         // Check permission
         if (!player.hasPermission("elr.use")) {
@@ -242,10 +63,31 @@ public class EnchantmentListener implements Listener {
         }
 
         Map<Enchantment, Integer> enchantsToAdd = event.getEnchantsToAdd();
-        List<String> disabledEnchants = plugin.getConfig().getStringList("disabled-enchantments");
+        EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+        EnchantmentRegistry registry = policy.getRegistry();
+        int tier = plugin.getTier(player);
+        int[] overrides = plugin.getOverrides().get(player);
         boolean showMessages = plugin.getConfig().getBoolean("show-messages", true);
         
         plugin.debugLog("Processing enchantment event for " + player.getName() + " on " + originalItem.getType());
+        // Without the money for the levels the player will get the enchanting does not happen; the charge itself
+        // waits until the result is certain
+        Material targetType = originalItem.getType() == Material.BOOK ? Material.ENCHANTED_BOOK : originalItem.getType();
+        EnchantEconomy economy = plugin.getEconomy();
+        boolean charging = economy.isChargingEnchantingTable() && !event.isCancelled();
+        if (charging && !economy.canAfford(player, grantedLevels(player, enchantsToAdd, policy, tier, targetType))) {
+            event.setCancelled(true);
+            return;
+        }
+        if (charging) {
+            pendingCharge = event;
+        }
+
+        EnchantAnalytics analytics = plugin.getAnalytics();
+        analytics.count(EnchantAnalytics.Source.ENCHANT_TABLE);
+        for (Map.Entry<Enchantment, Integer> entry : enchantsToAdd.entrySet()) {
+            analytics.observe(registry.indexOf(entry.getKey()), entry.getValue(), originalItem.getType());
+        }
         
         // Check if any enchantments need modification or removal
         boolean needsModification = false;
@@ -255,7 +97,7 @@ public class EnchantmentListener implements Listener {
             int level = entry.getValue();
             
             // Check disabled enchantments
-            if (disabledEnchants.contains(enchantment.getKey().getKey().toLowerCase())) {
+            if (policy.isDisabled(registry.indexOf(enchantment))) {
                 if (!player.hasPermission("elr.bypass.disabled")) {
                     needsModification = true;
                     plugin.debugLog("Enchantment " + enchantment.getKey().getKey() + " is disabled for " + player.getName());
@@ -266,7 +108,7 @@ public class EnchantmentListener implements Listener {
             }
             
             // Check level limits
-            int maxLevel = getMaxLevelForPlayer(player, enchantment, originalItem.getType());
+            int maxLevel = PlayerOverrides.apply(overrides, registry.indexOf(enchantment), policy.getMaxLevel(tier, registry.indexOf(enchantment), originalItem.getType()));
             if (level > maxLevel) {
                 needsModification = true;
                 plugin.debugLog("Enchantment level " + level + " exceeds max " + maxLevel + " for " + player.getName());
@@ -280,9 +122,29 @@ public class EnchantmentListener implements Listener {
             return;
         }
         
-        // Cancel the event and handle manually
+        // Let other plugins see and veto the changes; cancelling keeps vanilla enchanting
+        List<EnchantmentChange> changes = null;
+        if (EnchantmentCorrectEvent.hasListeners() || EnchantmentsCorrectedEvent.hasListeners()) {
+            changes = planTableChanges(player, enchantsToAdd, policy, tier, targetType);
+            if (EnchantmentCorrectEvent.hasListeners()) {
+                EnchantmentCorrectEvent correctEvent = new EnchantmentCorrectEvent(player, originalItem, changes);
+                plugin.getServer().getPluginManager().callEvent(correctEvent);
+                if (correctEvent.isCancelled()) {
+                    plugin.debugLog("Enchantment correction cancelled by another plugin for " + player.getName());
+                    return;
+                }
+            }
+        }
+        
+        // Cancel the event and handle manually; from here the outcome is this handler's, so it is charged now
         event.setCancelled(true);
         plugin.debugLog("Cancelled vanilla enchanting event, handling manually");
+        if (charging) {
+            pendingCharge = null;
+            if (!economy.charge(player, grantedLevels(player, enchantsToAdd, policy, tier, targetType))) {
+                return;
+            }
+        }
         
         // Handle enchantment application
         ItemStack targetItem = originalItem;
@@ -300,26 +162,28 @@ public class EnchantmentListener implements Listener {
                     int level = entry.getValue();
                     
                     // Skip disabled enchantments
-                    if (disabledEnchants.contains(enchantment.getKey().getKey().toLowerCase())) {
+                    if (policy.isDisabled(registry.indexOf(enchantment))) {
                         if (!player.hasPermission("elr.bypass.disabled")) {
+                            analytics.fix(EnchantAnalytics.Fix.DISABLED_REMOVED, registry.indexOf(enchantment));
                             if (showMessages) {
                                 String message = getConfigMessage("enchant-disabled", "§c{enchantment} enchantment is disabled!")
                                         .replace("{enchantment}", enchantment.getKey().getKey());
-                                player.sendMessage(message);
+                                plugin.getNotifications().add(player, message);
                             }
                             continue;
                         }
                     }
                     
                     // Apply level limits
-                    int maxLevel = getMaxLevelForPlayer(player, enchantment, targetItem.getType());
+                    int maxLevel = PlayerOverrides.apply(overrides, registry.indexOf(enchantment), policy.getMaxLevel(tier, registry.indexOf(enchantment), targetItem.getType()));
                     if (level > maxLevel) {
                         level = maxLevel;
+                        analytics.fix(EnchantAnalytics.Fix.LEVEL_REDUCED, registry.indexOf(enchantment));
                         if (showMessages) {
                             String message = getConfigMessage("max-level-limited", "§6Enchantment level limited to {level} for {enchantment}")
                                     .replace("{level}", String.valueOf(level))
                                     .replace("{enchantment}", enchantment.getKey().getKey());
-                            player.sendMessage(message);
+                            plugin.getNotifications().add(player, message);
                         }
                     }
                     
@@ -340,26 +204,28 @@ public class EnchantmentListener implements Listener {
                 int level = entry.getValue();
                 
                 // Skip disabled enchantments
-                if (disabledEnchants.contains(enchantment.getKey().getKey().toLowerCase())) {
+                if (policy.isDisabled(registry.indexOf(enchantment))) {
                     if (!player.hasPermission("elr.bypass.disabled")) {
+                        analytics.fix(EnchantAnalytics.Fix.DISABLED_REMOVED, registry.indexOf(enchantment));
                         if (showMessages) {
                             String message = getConfigMessage("enchant-disabled", "§c{enchantment} enchantment is disabled!")
                                     .replace("{enchantment}", enchantment.getKey().getKey());
-                            player.sendMessage(message);
+                            plugin.getNotifications().add(player, message);
                         }
                         continue;
                     }
                 }
                 
                 // Apply level limits
-                int maxLevel = getMaxLevelForPlayer(player, enchantment, targetItem.getType());
+                int maxLevel = PlayerOverrides.apply(overrides, registry.indexOf(enchantment), policy.getMaxLevel(tier, registry.indexOf(enchantment), targetItem.getType()));
                 if (level > maxLevel) {
                     level = maxLevel;
+                    analytics.fix(EnchantAnalytics.Fix.LEVEL_REDUCED, registry.indexOf(enchantment));
                     if (showMessages) {
                         String message = getConfigMessage("max-level-limited", "§6Enchantment level limited to {level} for {enchantment}")
                                 .replace("{level}", String.valueOf(level))
                                 .replace("{enchantment}", enchantment.getKey().getKey());
-                        player.sendMessage(message);
+                        plugin.getNotifications().add(player, message);
                     }
                 }
                 
@@ -393,6 +259,11 @@ public class EnchantmentListener implements Listener {
         plugin.debugLog("Player " + player.getName() + " enchanted item: " + 
             (originalItem.getType() == Material.BOOK ? "ENCHANTED_BOOK" : targetItem.getType()));
         
+        if (changes != null && EnchantmentsCorrectedEvent.hasListeners()) {
+            plugin.getServer().getPluginManager().callEvent(new EnchantmentsCorrectedEvent(player,
+                    Collections.singletonList(new EnchantmentsCorrectedEvent.Correction(targetItem, changes))));
+        }
+        
         // Success message
         if (showMessages) {
             String message = getConfigMessage("item-enchanted", "§aItem successfully enchanted!");
@@ -407,38 +278,93 @@ public class EnchantmentListener implements Listener {
         }
     }
     
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPrepareAnvil(PrepareAnvilEvent event) {
-        ItemStack result = event.getResult();
-        if (result == null || result.getType().isAir()) {
+    /**
+     * Charges for an enchanting table result vanilla applied, once no handler can cancel it any more.
+     * The levels charged are the ones vanilla adds, after other plugins changed them.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEnchantItemCharge(EnchantItemEvent event) {
+        if (pendingCharge != event) {
             return;
         }
-        
-        // Get the player who is using the anvil
-        Player player = null;
-        if (event.getInventory().getViewers().size() > 0 && event.getInventory().getViewers().get(0) instanceof Player) {
-            player = (Player) event.getInventory().getViewers().get(0);
+        pendingCharge = null;
+        int levels = 0;
+        for (int level : event.getEnchantsToAdd().values()) {
+            levels += level;
         }
-        
-        if (player == null || !player.hasPermission("elr.use")) {
-            return;
+        if (!plugin.getEconomy().charge(event.getEnchanter(), levels)) {
+            // The balance was checked before vanilla took over; only another plugin can have taken it since
+            plugin.getLogger().warning("Could not charge " + event.getEnchanter().getName() + " for an enchanting table result of "
+                    + levels + " levels, the balance changed while the event ran");
         }
-        
-        plugin.debugLog("Processing anvil event for " + player.getName() + " with result: " + result.getType());
-        
-        // Create a copy of the result to modify
-        ItemStack modifiedResult = result.clone();
-        boolean wasModified = checkAndFixEnchantments(player, modifiedResult);
-        
-        if (wasModified) {
-            event.setResult(modifiedResult);
-            plugin.debugLog("Modified anvil result for " + player.getName());
-            
-            // Log activity if enabled
-            if (plugin.getConfig().getBoolean("security.log-activities", true)) {
-                plugin.getLogger().info("Player " + player.getName() + " used anvil with limit enforcement at " + player.getLocation().toString());
+    }
+
+    /**
+     * Sums the levels of the offered enchantments after disabled enchantments and level limits are applied
+     */
+    private int grantedLevels(Player player, Map<Enchantment, Integer> enchantsToAdd, EnchantPolicy policy, int tier, Material targetType) {
+        EnchantmentRegistry registry = policy.getRegistry();
+        boolean bypassDisabled = player.hasPermission("elr.bypass.disabled");
+        int[] overrides = plugin.getOverrides().get(player);
+        int levels = 0;
+        for (Map.Entry<Enchantment, Integer> entry : enchantsToAdd.entrySet()) {
+            int index = registry.indexOf(entry.getKey());
+            if (!policy.isDisabled(index) || bypassDisabled) {
+                levels += Math.max(0, Math.min(entry.getValue(), PlayerOverrides.apply(overrides, index, policy.getMaxLevel(tier, index, targetType))));
             }
         }
+        return levels;
+    }
+
+    /**
+     * Lists the changes the enchanting table handler is about to make to the offered enchantments
+     */
+    private List<EnchantmentChange> planTableChanges(Player player, Map<Enchantment, Integer> enchantsToAdd,
+                                                     EnchantPolicy policy, int tier, Material targetType) {
+        EnchantmentRegistry registry = policy.getRegistry();
+        boolean bypassDisabled = player.hasPermission("elr.bypass.disabled");
+        int[] overrides = plugin.getOverrides().get(player);
+        List<EnchantmentChange> changes = new ArrayList<>();
+        for (Map.Entry<Enchantment, Integer> entry : enchantsToAdd.entrySet()) {
+            int index = registry.indexOf(entry.getKey());
+            String name = entry.getKey().getKey().getKey();
+            int level = entry.getValue();
+            if (policy.isDisabled(index) && !bypassDisabled) {
+                changes.add(new EnchantmentChange(entry.getKey(), name, level, 0, EnchantmentChange.Reason.DISABLED));
+                continue;
+            }
+            int maxLevel = PlayerOverrides.apply(overrides, index, policy.getMaxLevel(tier, index, targetType));
+            if (level > maxLevel) {
+                changes.add(new EnchantmentChange(entry.getKey(), name, level, maxLevel, EnchantmentChange.Reason.LEVEL_LIMIT));
+            }
+        }
+        return Collections.unmodifiableList(changes);
+    }
+    
+    @EventHandler
+    public void onServerResourcesReloaded(ServerResourcesReloadedEvent event) {
+        // Datapacks may have added or removed enchantments
+        plugin.refreshRegistry();
+    }
+    
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        plugin.getWorldPolicies().bind(event.getWorld());
+    }
+    
+    @EventHandler
+    public void onWorldUnload(WorldUnloadEvent event) {
+        plugin.getWorldPolicies().unbind(event.getWorld());
+    }
+    
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        Player player = event.getPlayer();
+        
+        // Only re-check when the new world uses a different limit profile
+        if (plugin.getPolicy(event.getFrom()) != plugin.getPolicy(player.getWorld())) {
+            plugin.getSweepQueue().enqueue(player);
+        }
     }
     
     @EventHandler
@@ -447,7 +373,8 @@ public class EnchantmentListener implements Listener {
         
         // Check inventory after a short delay to ensure everything is loaded
         plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            checkAndFixPlayerInventory(player);
+            plugin.getAnalytics().count(EnchantAnalytics.Source.JOIN);
+            plugin.getEnforcer().checkAndFixPlayerInventory(player);
         }, 20L); // 1 second delay
     }
     
@@ -465,19 +392,21 @@ public class EnchantmentListener implements Listener {
         
         ItemStack currentItem = event.getCurrentItem();
         
-        // Check the item being moved/clicked
-        if (currentItem != null && !currentItem.getType().isAir()) {
+        // Check the item being moved/clicked; plain stacks never need a check, so no task is scheduled for them
+        if (EnchantmentEnforcer.mayCarryEnchantments(currentItem)) {
             // Run check after the click event completes
             plugin.getServer().getScheduler().runTask(plugin, () -> {
-                checkAndFixEnchantments(player, currentItem);
+                plugin.getAnalytics().count(EnchantAnalytics.Source.INVENTORY_CLICK);
+                plugin.getEnforcer().checkAndFixEnchantments(player, currentItem);
             });
         }
         
         // Also check cursor item
         ItemStack cursorItem = event.getCursor();
-        if (cursorItem != null && !cursorItem.getType().isAir()) {
+        if (EnchantmentEnforcer.mayCarryEnchantments(cursorItem)) {
             plugin.getServer().getScheduler().runTask(plugin, () -> {
-                checkAndFixEnchantments(player, cursorItem);
+                plugin.getAnalytics().count(EnchantAnalytics.Source.INVENTORY_CLICK);
+                plugin.getEnforcer().checkAndFixEnchantments(player, cursorItem);
             });
         }
     }
@@ -492,9 +421,21 @@ public class EnchantmentListener implements Listener {
         
         ItemStack item = event.getItem().getItemStack();
         
+        // Blocked players cannot pick up enchanted items until the block expires
+        ExploitDetector exploitDetector = plugin.getExploitDetector();
+        if (exploitDetector.isBlocked(player) && EnchantmentEnforcer.hasEnchantments(item)) {
+            event.setCancelled(true);
+            return;
+        }
+        
         // Check the item being picked up
-        if (checkAndFixEnchantments(player, item)) {
+        plugin.getAnalytics().count(EnchantAnalytics.Source.PICKUP);
+        if (!EnchantmentEnforcer.mayCarryEnchantments(item)) {
+            return;
+        }
+        if (plugin.getEnforcer().checkAndFixEnchantments(player, item)) {
             event.getItem().setItemStack(item);
+            exploitDetector.record(player, ExploitDetector.Check.OVER_LIMIT_PICKUPS);
             plugin.debugLog("Fixed enchantments on picked up item for " + player.getName());
         }
     }
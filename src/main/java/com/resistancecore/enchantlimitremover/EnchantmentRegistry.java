@@ -0,0 +1,285 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.enchantments.Enchantment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiled view of all known enchantments.
+ * Every server enchantment and every custom enchantment gets a dense index, so the rest of the
+ * plugin can keep per-enchantment data in arrays and bitsets instead of string-keyed maps.
+ * Custom enchantments are indexed after the server enchantments.
+ * <p>
+ * Names are resolved through a single map holding full keys ({@code minecraft:sharpness},
+ * {@code mypack:lifesteal}), short names and configured aliases. Short names of the minecraft
+ * namespace win over datapack enchantments with the same short name.
+ * <p>
+ * Everything but {@link #build} works on names, levels and bitsets only, so a registry made with {@link #of}
+ * needs no server.
+ */
+public class EnchantmentRegistry {
+    private final Enchantment[] enchantments;
+    private final CustomEnchantments.Definition[] customs;
+    private final String[] names;
+    private final int[] maxLevels;
+    private final Map<Enchantment, Integer> indexByEnchantment;
+    private final Map<String, Integer> indexByName;
+    private final long[][] conflicts;
+    private final int words;
+
+    /**
+     * @param enchantments The server enchantments; entries are null in registries made without a server
+     * @param keys The full keys of the server enchantments, such as minecraft:sharpness
+     * @param serverMaxLevels The vanilla max levels of the server enchantments
+     */
+    private EnchantmentRegistry(Enchantment[] enchantments, String[] keys, int[] serverMaxLevels, CustomEnchantments.Definition[] customs) {
+        this.enchantments = enchantments;
+        this.customs = customs;
+        int size = enchantments.length + customs.length;
+        this.words = Math.max(1, (size + 63) >>> 6);
+        this.names = new String[size];
+        this.maxLevels = new int[size];
+        this.indexByEnchantment = new HashMap<>(enchantments.length * 2);
+        this.indexByName = new HashMap<>(size * 2);
+        this.conflicts = new long[size][words];
+
+        // Full keys and minecraft short names first, so they take precedence
+        for (int i = 0; i < enchantments.length; i++) {
+            String shortName = keys[i].substring(keys[i].indexOf(':') + 1);
+            boolean minecraft = keys[i].startsWith(NamespacedKey.MINECRAFT + ":");
+            names[i] = minecraft ? shortName : keys[i];
+            maxLevels[i] = serverMaxLevels[i];
+            if (enchantments[i] != null) {
+                indexByEnchantment.put(enchantments[i], i);
+            }
+            indexByName.put(keys[i], i);
+            if (minecraft) {
+                indexByName.put(shortName, i);
+            }
+        }
+        for (int i = 0; i < enchantments.length; i++) {
+            indexByName.putIfAbsent(keys[i].substring(keys[i].indexOf(':') + 1), i);
+        }
+        for (int i = 0; i < customs.length; i++) {
+            int index = enchantments.length + i;
+            names[index] = customs[i].getId();
+            maxLevels[index] = customs[i].getMaxLevel();
+            indexByName.putIfAbsent(names[index], index);
+            indexByName.putIfAbsent(customs[i].getKey().toString(), index);
+        }
+    }
+
+    /**
+     * Builds the registry from the server's enchantment registry and the loaded custom enchantments
+     * @param aliases Alias to enchantment name mappings; aliases pointing to unknown names are skipped
+     */
+    public static EnchantmentRegistry build(CustomEnchantments customEnchantments, Map<String, String> aliases) {
+        List<Enchantment> server = new ArrayList<>();
+        for (Enchantment enchantment : Registry.ENCHANTMENT) {
+            server.add(enchantment);
+        }
+        List<CustomEnchantments.Definition> custom = new ArrayList<>();
+        if (customEnchantments.isEnabled()) {
+            custom.addAll(customEnchantments.getDefinitions());
+        }
+
+        String[] keys = new String[server.size()];
+        int[] maxLevels = new int[server.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = server.get(i).getKey().toString();
+            maxLevels[i] = server.get(i).getMaxLevel();
+        }
+
+        EnchantmentRegistry registry = new EnchantmentRegistry(
+                server.toArray(new Enchantment[0]),
+                keys,
+                maxLevels,
+                custom.toArray(new CustomEnchantments.Definition[0]));
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            int index = registry.indexOf(alias.getValue());
+            if (index >= 0) {
+                registry.indexByName.putIfAbsent(alias.getKey().toLowerCase(Locale.ROOT), index);
+            }
+        }
+        registry.compileConflicts();
+        return registry;
+    }
+
+    /**
+     * Builds a registry without a server, for code that only needs names, levels and conflicts.
+     * {@link #getEnchantment} returns null for every index.
+     * @param keys Full keys of the server enchantments, such as minecraft:sharpness
+     * @param maxLevels The vanilla max level of each key
+     * @param conflicts Pairs of conflicting server enchantment indices
+     * @param customs Custom enchantments, indexed after the server ones with the conflicts they declare
+     */
+    static EnchantmentRegistry of(String[] keys, int[] maxLevels, int[][] conflicts, CustomEnchantments.Definition... customs) {
+        EnchantmentRegistry registry = new EnchantmentRegistry(new Enchantment[keys.length], keys, maxLevels, customs);
+        for (int[] pair : conflicts) {
+            registry.setConflict(pair[0], pair[1]);
+        }
+        registry.compileCustomConflicts();
+        return registry;
+    }
+
+    private void compileConflicts() {
+        // Vanilla conflicts
+        for (int a = 0; a < enchantments.length; a++) {
+            for (int b = a + 1; b < enchantments.length; b++) {
+                if (enchantments[a].conflictsWith(enchantments[b]) || enchantments[b].conflictsWith(enchantments[a])) {
+                    setConflict(a, b);
+                }
+            }
+        }
+        compileCustomConflicts();
+    }
+
+    /**
+     * Adds the conflicts declared by custom enchantments
+     */
+    private void compileCustomConflicts() {
+        for (int i = 0; i < customs.length; i++) {
+            int index = enchantments.length + i;
+            for (String name : customs[i].getConflicts()) {
+                int other = indexOf(name);
+                if (other >= 0 && other != index) {
+                    setConflict(index, other);
+                }
+            }
+        }
+    }
+
+    private void setConflict(int a, int b) {
+        conflicts[a][b >>> 6] |= 1L << b;
+        conflicts[b][a >>> 6] |= 1L << a;
+    }
+
+    /**
+     * Gets the total number of indexed enchantments, server and custom
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Hashes the names in index order and the conflicts; stable across restarts for the same enchantments
+     */
+    public int fingerprint() {
+        return 31 * Arrays.hashCode(names) + Arrays.deepHashCode(conflicts);
+    }
+
+    /**
+     * Gets the number of long words needed for a bitset over all enchantments
+     */
+    public int words() {
+        return words;
+    }
+
+    public int serverCount() {
+        return enchantments.length;
+    }
+
+    /**
+     * Gets the index of a server enchantment, or -1 if it was not registered when this registry was built
+     */
+    public int indexOf(Enchantment enchantment) {
+        if (enchantment == null) {
+            return -1;
+        }
+        Integer index = indexByEnchantment.get(enchantment);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets the index of an enchantment by full key, short name, alias or custom id, or -1 if unknown
+     */
+    public int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer index = indexByName.get(name);
+        if (index == null) {
+            index = indexByName.get(name.toLowerCase(Locale.ROOT));
+        }
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets the display name of an enchantment: the short name for the minecraft namespace,
+     * the full key for other namespaces and the id for custom enchantments
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Gets the vanilla max level of a server enchantment, or the max-level of a custom enchantment
+     */
+    public int getMaxLevel(int index) {
+        return maxLevels[index];
+    }
+
+    /**
+     * Gets the server enchantment at an index, or null for custom enchantments
+     */
+    public Enchantment getEnchantment(int index) {
+        return index < enchantments.length ? enchantments[index] : null;
+    }
+
+    /**
+     * Gets the custom enchantment at an index, or null for server enchantments
+     */
+    public CustomEnchantments.Definition getCustom(int index) {
+        return index >= enchantments.length ? customs[index - enchantments.length] : null;
+    }
+
+    public boolean isCustom(int index) {
+        return index >= enchantments.length;
+    }
+
+    /**
+     * Checks whether any custom enchantments are indexed; if not, an item's enchantment map is its complete mask
+     */
+    public boolean hasCustom() {
+        return names.length > enchantments.length;
+    }
+
+    /**
+     * Gets the conflict row for an enchantment, one bit per conflicting enchantment
+     */
+    public long[] getConflicts(int index) {
+        return conflicts[index];
+    }
+
+    public boolean conflicts(int a, int b) {
+        return (conflicts[a][b >>> 6] & (1L << b)) != 0;
+    }
+
+    /**
+     * Checks whether any bit set in the mask conflicts with the given enchantment
+     */
+    public boolean conflictsWithAny(int index, long[] mask) {
+        long[] row = conflicts[index];
+        for (int i = 0; i < words; i++) {
+            if ((row[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isSet(long[] mask, int index) {
+        return (mask[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static void set(long[] mask, int index) {
+        mask[index >>> 6] |= 1L << index;
+    }
+}
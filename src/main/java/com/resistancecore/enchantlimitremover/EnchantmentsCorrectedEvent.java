@@ -0,0 +1,64 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Called after enchantments were corrected: once for a single item, or once for a whole
+ * inventory check with every corrected item. Only fired when a listener is registered.
+ */
+public class EnchantmentsCorrectedEvent extends PlayerEvent {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final List<Correction> corrections;
+
+    public EnchantmentsCorrectedEvent(Player player, List<Correction> corrections) {
+        super(player);
+        this.corrections = corrections;
+    }
+
+    /**
+     * Gets the corrected items with their changes (unmodifiable)
+     */
+    public List<Correction> getCorrections() {
+        return corrections;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+
+    /**
+     * The changes made to one item
+     */
+    public static class Correction {
+        private final ItemStack item;
+        private final List<EnchantmentChange> changes;
+
+        public Correction(ItemStack item, List<EnchantmentChange> changes) {
+            this.item = item;
+            this.changes = changes;
+        }
+
+        public ItemStack getItem() {
+            return item;
+        }
+
+        public List<EnchantmentChange> getChanges() {
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ItemFrame;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.inventory.EntityEquipment;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Checks the equipment of mobs and armor stands and the items in item frames when their chunk loads,
+ * if entities.enabled is set. Loaded entities are queued and processed under a per-tick budget, so entity
+ * farms loading thousands of mobs at once are spread over several ticks. Reading the stamp of an entity that
+ * needs no check has its own, larger budget, so farms of already checked mobs are spread out as well.
+ * <p>
+ * Every checked entity is stamped with the epoch of its world's policy, the {@link EnchantPolicy#fingerprint}
+ * of the entity tier, and skipped on later loads until the epoch changes. Changing messages or other settings
+ * that do not affect corrections keeps the stamps valid. Entities use the tier configured in entities.tier.
+ * Main thread only.
+ */
+public class EntityEquipmentSweep implements Listener, Runnable {
+    private static final EquipmentSlot[] SLOTS = EquipmentSlot.values();
+
+    private final EnchantLimitRemover plugin;
+    private final NamespacedKey key;
+    private final ArrayDeque<Entity> queue = new ArrayDeque<>();
+    private final Map<EnchantPolicy, Integer> epochs = new IdentityHashMap<>();
+    private boolean enabled;
+    private int tier;
+    private BukkitTask task;
+
+    public EntityEquipmentSweep(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+        this.key = new NamespacedKey(plugin, "policy_epoch");
+    }
+
+    /**
+     * Reads the settings; epochs of the new policies are computed when first needed
+     */
+    public void load(LimitGroups groups) {
+        enabled = plugin.getConfig().getBoolean("entities.enabled", false);
+        String tierName = plugin.getConfig().getString("entities.tier", "0");
+        tier = groups.tierOf(tierName);
+        if (tier < 0) {
+            plugin.getLogger().warning("Unknown entities.tier in config: " + tierName + ", using the base tier");
+            tier = 0;
+        }
+
+        epochs.clear();
+        if (!enabled) {
+            queue.clear();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (Entity entity : event.getEntities()) {
+            if ((entity instanceof LivingEntity && !(entity instanceof Player)) || entity instanceof ItemFrame) {
+                queue.add(entity);
+            }
+        }
+        if (task == null && !queue.isEmpty() && plugin.isEnabled()) {
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+        }
+    }
+
+    @Override
+    public void run() {
+        int budget = Math.max(1, plugin.getConfig().getInt("entities.checks-per-tick", 20));
+        int reads = Math.max(budget, plugin.getConfig().getInt("entities.reads-per-tick", 200));
+        while (budget > 0 && reads > 0 && !queue.isEmpty()) {
+            Entity entity = queue.poll();
+            if (!entity.isValid()) {
+                continue;
+            }
+            reads--;
+            EnchantPolicy policy = plugin.getPolicy(entity.getWorld());
+            Integer epoch = epochs.get(policy);
+            if (epoch == null) {
+                epoch = policy.fingerprint(tier);
+                epochs.put(policy, epoch);
+            }
+            PersistentDataContainer data = entity.getPersistentDataContainer();
+            Integer stamp = data.get(key, PersistentDataType.INTEGER);
+            if (stamp != null && stamp.equals(epoch)) {
+                continue;
+            }
+
+            check(entity, policy);
+            data.set(key, PersistentDataType.INTEGER, epoch);
+            budget--;
+        }
+
+        if (queue.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void check(Entity entity, EnchantPolicy policy) {
+        plugin.getAnalytics().count(EnchantAnalytics.Source.ENTITY);
+        EnchantmentEnforcer enforcer = plugin.getEnforcer();
+        int fixed = 0;
+
+        if (entity instanceof ItemFrame) {
+            ItemFrame frame = (ItemFrame) entity;
+            ItemStack item = frame.getItem();
+            if (enforcer.fixUnowned(policy, tier, item)) {
+                frame.setItem(item, false);
+                fixed++;
+            }
+        } else {
+            LivingEntity living = (LivingEntity) entity;
+            EntityEquipment equipment = living.getEquipment();
+            if (equipment == null) {
+                return;
+            }
+            for (EquipmentSlot slot : SLOTS) {
+                if (!living.canUseEquipmentSlot(slot)) {
+                    continue;
+                }
+                ItemStack item = equipment.getItem(slot);
+                if (enforcer.fixUnowned(policy, tier, item)) {
+                    equipment.setItem(slot, item, true);
+                    fixed++;
+                }
+            }
+        }
+
+        if (fixed > 0) {
+            plugin.debugLog("Fixed " + fixed + " items on " + entity.getType() + " at " + entity.getLocation());
+        }
+    }
+
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        queue.clear();
+    }
+}
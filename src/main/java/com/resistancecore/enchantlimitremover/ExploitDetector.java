@@ -0,0 +1,224 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.PrepareAnvilEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.AnvilInventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Detects suspicious enchanting patterns when security.prevent-exploits is enabled.
+ * Each player has one ring buffer of timestamps per check, sized to the check's threshold:
+ * recording an event overwrites the oldest timestamp, and the check triggers when that oldest
+ * timestamp is still inside the window. State is created on first event and dropped on quit.
+ * An anvil cycle is a prepared result that is then taken: a prepare sets a flag and the next take records the
+ * cycle, so repeated prepares without a take, such as typing a name, count for nothing.
+ * Whether the player has elr.bypass.exploits is resolved once when the state is created, so recording stays
+ * a couple of array writes; a changed permission applies after the player rejoins or the config is reloaded.
+ * Main thread only.
+ */
+public class ExploitDetector implements Listener {
+
+    /**
+     * The patterns that are tracked
+     */
+    public enum Check {
+        ANVIL_CYCLES("anvil-cycles", 20, 10),
+        OVER_LIMIT_PICKUPS("over-limit-pickups", 5, 30),
+        ADD_COMMANDS("add-commands", 10, 10);
+
+        private final String path;
+        private final int defaultThreshold;
+        private final int defaultWindowSeconds;
+
+        Check(String path, int defaultThreshold, int defaultWindowSeconds) {
+            this.path = path;
+            this.defaultThreshold = defaultThreshold;
+            this.defaultWindowSeconds = defaultWindowSeconds;
+        }
+    }
+
+    private static final Check[] CHECKS = Check.values();
+
+    private final EnchantLimitRemover plugin;
+    private final Map<UUID, Tracker> trackers = new HashMap<>();
+    private boolean enabled;
+    private final int[] thresholds = new int[CHECKS.length];
+    private final int[] offsets = new int[CHECKS.length];
+    private final long[] windows = new long[CHECKS.length];
+    private int slots;
+    private boolean log;
+    private boolean notify;
+    private boolean block;
+    private long blockMillis;
+
+    public ExploitDetector(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Reads thresholds and actions; tracked state is reset since buffer sizes may change
+     */
+    public void load() {
+        enabled = plugin.getConfig().getBoolean("security.prevent-exploits", true);
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("security.exploit-detection");
+        slots = 0;
+        for (Check check : CHECKS) {
+            int threshold = section != null ? section.getInt(check.path + ".threshold", check.defaultThreshold) : check.defaultThreshold;
+            int window = section != null ? section.getInt(check.path + ".window-seconds", check.defaultWindowSeconds) : check.defaultWindowSeconds;
+            thresholds[check.ordinal()] = Math.max(1, threshold);
+            windows[check.ordinal()] = window * 1000L;
+            offsets[check.ordinal()] = slots;
+            slots += thresholds[check.ordinal()];
+        }
+
+        List<String> actions = section != null ? section.getStringList("actions") : null;
+        if (actions == null || actions.isEmpty()) {
+            actions = List.of("log", "notify");
+        }
+        log = actions.contains("log");
+        notify = actions.contains("notify");
+        block = actions.contains("block");
+        blockMillis = (section != null ? section.getLong("block-seconds", 30) : 30) * 1000L;
+        trackers.clear();
+    }
+
+    /**
+     * Records an event for a player and runs the actions if the check's threshold is reached
+     */
+    public void record(Player player, Check check) {
+        if (!enabled) {
+            return;
+        }
+        Tracker tracker = tracker(player);
+        if (tracker.bypass) {
+            return;
+        }
+        int c = check.ordinal();
+        long now = System.currentTimeMillis();
+
+        // The slot at the head holds the oldest of the last threshold events
+        int slot = offsets[c] + tracker.heads[c];
+        long oldest = tracker.times[slot];
+        tracker.times[slot] = now;
+        tracker.heads[c] = (tracker.heads[c] + 1) % thresholds[c];
+
+        if (oldest == 0 || now - oldest > windows[c] || now < tracker.quietUntil[c]) {
+            return;
+        }
+        tracker.quietUntil[c] = now + windows[c];
+        trigger(player, tracker, check, now);
+    }
+
+    private Tracker tracker(Player player) {
+        Tracker tracker = trackers.get(player.getUniqueId());
+        if (tracker == null) {
+            tracker = new Tracker(slots, player.hasPermission("elr.bypass.exploits"));
+            trackers.put(player.getUniqueId(), tracker);
+        }
+        return tracker;
+    }
+
+    private void trigger(Player player, Tracker tracker, Check check, long now) {
+        String description = check.path + " (" + thresholds[check.ordinal()] + " in " + windows[check.ordinal()] / 1000L + "s)";
+        if (log) {
+            plugin.getLogger().warning("Exploit detection: " + player.getName() + " triggered " + description
+                    + " at " + player.getLocation().toString());
+        }
+        if (notify) {
+            String message = getConfigMessage("exploit-detected", "{prefix}§c{player} §6triggered exploit detection: §e{check}")
+                    .replace("{player}", player.getName())
+                    .replace("{check}", description);
+            for (Player staff : plugin.getServer().getOnlinePlayers()) {
+                if (staff.hasPermission("elr.notify.exploits")) {
+                    staff.sendMessage(message);
+                }
+            }
+        }
+        if (block) {
+            tracker.blockedUntil = now + blockMillis;
+            player.sendMessage(getConfigMessage("exploit-blocked", "{prefix}§cYou are blocked from enchanting actions for §e{time} §cseconds!")
+                    .replace("{time}", String.valueOf(blockMillis / 1000L)));
+        }
+    }
+
+    /**
+     * Checks whether a player is temporarily blocked from anvil results, enchanted pickups and /elrenchant add
+     */
+    public boolean isBlocked(Player player) {
+        if (!enabled) {
+            return false;
+        }
+        Tracker tracker = trackers.get(player.getUniqueId());
+        return tracker != null && tracker.blockedUntil > System.currentTimeMillis();
+    }
+
+    private String getConfigMessage(String key, String defaultMessage) {
+        return plugin.getConfig().getString("messages." + key, defaultMessage)
+                .replace("{prefix}", plugin.getConfig().getString("messages.prefix", "§6[§eELR§6] "));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAnvilPrepare(PrepareAnvilEvent event) {
+        ItemStack result = event.getResult();
+        if (!enabled || result == null || result.getType().isAir() || !(event.getView().getPlayer() instanceof Player)) {
+            return;
+        }
+        tracker((Player) event.getView().getPlayer()).anvilPrepared = true;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onAnvilTake(InventoryClickEvent event) {
+        if (!enabled || !(event.getInventory() instanceof AnvilInventory) || event.getRawSlot() != 2
+                || !(event.getWhoClicked() instanceof Player)) {
+            return;
+        }
+        ItemStack result = event.getCurrentItem();
+        if (result == null || result.getType().isAir()) {
+            return;
+        }
+
+        Player player = (Player) event.getWhoClicked();
+        if (isBlocked(player)) {
+            event.setCancelled(true);
+            return;
+        }
+        Tracker tracker = trackers.get(player.getUniqueId());
+        if (tracker != null && tracker.anvilPrepared) {
+            tracker.anvilPrepared = false;
+            record(player, Check.ANVIL_CYCLES);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        trackers.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Ring buffers of one player, all checks packed into one array
+     */
+    private static class Tracker {
+        final long[] times;
+        final int[] heads = new int[CHECKS.length];
+        final long[] quietUntil = new long[CHECKS.length];
+        final boolean bypass;
+        long blockedUntil;
+        boolean anvilPrepared;
+
+        Tracker(int slots, boolean bypass) {
+            this.times = bypass ? new long[0] : new long[slots];
+            this.bypass = bypass;
+        }
+    }
+}
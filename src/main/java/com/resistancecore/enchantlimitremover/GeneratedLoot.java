@@ -0,0 +1,226 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.VillagerAcquireTradeEvent;
+import org.bukkit.event.entity.VillagerReplenishTradeEvent;
+import org.bukkit.event.player.PlayerFishEvent;
+import org.bukkit.event.world.LootGenerateEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.MerchantRecipe;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Enforces limits on items the server generates: container loot, fishing catches and villager trades.
+ * Generated items have no owner yet, so they are checked against the tier in generation.tier without messages.
+ * <p>
+ * Loot tables and trading halls produce the same items over and over, so the verdict for each item signature
+ * (the item itself, compared with equals) is kept in a small LRU per world policy; identical offers and restocks
+ * are a map lookup. Optionally, generation.upgrade raises the levels of generated enchantments at random,
+ * up to the tier's caps; upgrades are rolled after the cached verdict and never on restocks. Main thread only.
+ */
+public class GeneratedLoot implements Listener {
+    // Cached in place of the item when the verdict is that nothing changes
+    private static final ItemStack UNCHANGED = new ItemStack(Material.AIR);
+
+    private final EnchantLimitRemover plugin;
+    private final Map<Key, ItemStack> verdicts = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ItemStack> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    private boolean enabled;
+    private int tier;
+    private int cacheSize;
+    private boolean upgradeLoot;
+    private boolean upgradeFishing;
+    private boolean upgradeTrades;
+    private double upgradeChance;
+    private int upgradeLevels;
+
+    public GeneratedLoot(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Reads the settings and drops all cached verdicts
+     */
+    public void load(LimitGroups groups) {
+        verdicts.clear();
+        enabled = plugin.getConfig().getBoolean("generation.enabled", true);
+        cacheSize = Math.max(0, plugin.getConfig().getInt("generation.cache-size", 512));
+        String tierName = plugin.getConfig().getString("generation.tier", "0");
+        tier = groups.tierOf(tierName);
+        if (tier < 0) {
+            plugin.getLogger().warning("Unknown generation.tier in config: " + tierName + ", using the base tier");
+            tier = 0;
+        }
+
+        boolean upgrade = plugin.getConfig().getBoolean("generation.upgrade.enabled", false);
+        List<String> sources = plugin.getConfig().getStringList("generation.upgrade.sources");
+        upgradeLoot = upgrade && sources.contains("loot");
+        upgradeFishing = upgrade && sources.contains("fishing");
+        upgradeTrades = upgrade && sources.contains("trades");
+        upgradeChance = plugin.getConfig().getDouble("generation.upgrade.chance", 0.1);
+        upgradeLevels = Math.max(1, plugin.getConfig().getInt("generation.upgrade.max-bonus-levels", 2));
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onLootGenerate(LootGenerateEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<ItemStack> loot = event.getLoot();
+        for (int i = 0; i < loot.size(); i++) {
+            ItemStack item = loot.get(i);
+            ItemStack checked = check(event.getWorld(), item, upgradeLoot, EnchantAnalytics.Source.LOOT);
+            if (checked != item) {
+                loot.set(i, checked);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onFish(PlayerFishEvent event) {
+        if (!enabled || event.getState() != PlayerFishEvent.State.CAUGHT_FISH || !(event.getCaught() instanceof Item)) {
+            return;
+        }
+        Item caught = (Item) event.getCaught();
+        ItemStack item = caught.getItemStack();
+        ItemStack checked = check(caught.getWorld(), item, upgradeFishing, EnchantAnalytics.Source.FISHING);
+        if (checked != item) {
+            caught.setItemStack(checked);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onAcquireTrade(VillagerAcquireTradeEvent event) {
+        if (enabled) {
+            MerchantRecipe recipe = checkRecipe(event.getEntity().getWorld(), event.getRecipe(), upgradeTrades);
+            if (recipe != null) {
+                event.setRecipe(recipe);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onReplenishTrade(VillagerReplenishTradeEvent event) {
+        if (enabled) {
+            MerchantRecipe recipe = checkRecipe(event.getEntity().getWorld(), event.getRecipe(), false);
+            if (recipe != null) {
+                event.setRecipe(recipe);
+            }
+        }
+    }
+
+    /**
+     * Gets a copy of a recipe with a checked result, or null if the result is unchanged
+     */
+    private MerchantRecipe checkRecipe(World world, MerchantRecipe recipe, boolean upgrade) {
+        ItemStack result = recipe.getResult();
+        ItemStack checked = check(world, result, upgrade, EnchantAnalytics.Source.TRADE);
+        if (checked == result) {
+            return null;
+        }
+        MerchantRecipe copy = new MerchantRecipe(checked, recipe.getUses(), recipe.getMaxUses(), recipe.hasExperienceReward(),
+                recipe.getVillagerExperience(), recipe.getPriceMultiplier(), recipe.getDemand(), recipe.getSpecialPrice(),
+                recipe.shouldIgnoreDiscounts());
+        copy.setIngredients(recipe.getIngredients());
+        return copy;
+    }
+
+    /**
+     * Gets the checked and possibly upgraded item, or the same instance if nothing changed
+     */
+    private ItemStack check(World world, ItemStack item, boolean upgrade, EnchantAnalytics.Source source) {
+        if (item == null || !item.hasItemMeta()) {
+            return item;
+        }
+        EnchantPolicy policy = plugin.getPolicy(world);
+        Key key = new Key(policy, item);
+        ItemStack verdict = verdicts.get(key);
+        if (verdict == null) {
+            plugin.getAnalytics().count(source);
+            ItemStack corrected = item.clone();
+            verdict = plugin.getEnforcer().fixUnowned(policy, tier, corrected) ? corrected : item;
+            if (cacheSize > 0) {
+                verdicts.put(new Key(policy, item.clone()), verdict == item ? UNCHANGED : verdict.clone());
+            }
+        } else if (verdict == UNCHANGED) {
+            verdict = item;
+        } else {
+            verdict = verdict.clone();
+        }
+
+        if (upgrade && ThreadLocalRandom.current().nextDouble() < upgradeChance) {
+            ItemStack upgraded = verdict == item ? item.clone() : verdict;
+            if (upgrade(policy, upgraded)) {
+                return upgraded;
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * Raises every enchantment by up to generation.upgrade.max-bonus-levels, never above the tier's cap
+     */
+    private boolean upgrade(EnchantPolicy policy, ItemStack item) {
+        ItemMeta meta = item.getItemMeta();
+        boolean book = meta instanceof EnchantmentStorageMeta;
+        Map<Enchantment, Integer> enchantments = book ? ((EnchantmentStorageMeta) meta).getStoredEnchants() : meta.getEnchants();
+        EnchantmentRegistry registry = policy.getRegistry();
+        boolean modified = false;
+        for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
+            int cap = policy.getMaxLevel(tier, registry.indexOf(entry.getKey()), item.getType());
+            int level = Math.min(cap, entry.getValue() + 1 + ThreadLocalRandom.current().nextInt(upgradeLevels));
+            if (level <= entry.getValue()) {
+                continue;
+            }
+            if (book) {
+                ((EnchantmentStorageMeta) meta).addStoredEnchant(entry.getKey(), level, true);
+            } else {
+                meta.addEnchant(entry.getKey(), level, true);
+            }
+            modified = true;
+        }
+        if (modified) {
+            item.setItemMeta(meta);
+        }
+        return modified;
+    }
+
+    /**
+     * A generated item under a world policy
+     */
+    private static class Key {
+        final EnchantPolicy policy;
+        final ItemStack item;
+
+        Key(EnchantPolicy policy, ItemStack item) {
+            this.policy = policy;
+            this.item = item;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).policy == policy && ((Key) o).item.equals(item);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(policy) * 31 + item.hashCode();
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Dry run of {@link EnchantmentEnforcer} against a candidate configuration.
+ * Enchantments of online players' inventories, ender chests and armor, custom enchantments included, are
+ * snapshotted on the main thread a few players per tick together with the player's bypass permissions and
+ * personal overrides. The snapshots are then evaluated with {@link EnchantPolicy#correct}, the check the
+ * enforcer runs, on the fork-join pool and the report is written to a file; nothing is modified.
+ */
+public class InventoryAudit implements Runnable {
+    private static final int TOP_OFFENDERS = 10;
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private final EnchantLimitRemover plugin;
+    private final CommandSender sender;
+    private final String candidateName;
+    private final WorldPolicies candidate;
+    private final LimitGroups candidateGroups;
+    private final Deque<Player> pending = new ArrayDeque<>();
+    private final List<PlayerSnapshot> snapshots = new ArrayList<>();
+    private BukkitTask task;
+
+    private InventoryAudit(EnchantLimitRemover plugin, CommandSender sender, String candidateName,
+                           WorldPolicies candidate, LimitGroups candidateGroups) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.candidateName = candidateName;
+        this.candidate = candidate;
+        this.candidateGroups = candidateGroups;
+    }
+
+    /**
+     * Starts an audit against a candidate file in the plugin folder.
+     * Keys the candidate file defines override the current configuration.
+     * @return The running audit, or null if the name is not a plain file name or the file does not exist
+     */
+    public static InventoryAudit start(EnchantLimitRemover plugin, CommandSender sender, String fileName) {
+        if (!isPlainFileName(fileName)) {
+            return null;
+        }
+        File file = new File(plugin.getDataFolder(), fileName);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        YamlConfiguration merged = new YamlConfiguration();
+        for (String key : plugin.getConfig().getKeys(true)) {
+            if (!plugin.getConfig().isConfigurationSection(key)) {
+                merged.set(key, plugin.getConfig().get(key));
+            }
+        }
+        YamlConfiguration overrides = YamlConfiguration.loadConfiguration(file);
+        for (String key : overrides.getKeys(true)) {
+            if (!overrides.isConfigurationSection(key)) {
+                merged.set(key, overrides.get(key));
+            }
+        }
+
+        LimitGroups groups = LimitGroups.compile(merged, plugin.getLogger());
+        WorldPolicies policies = plugin.compileWorldPolicies(merged, groups);
+        for (org.bukkit.World world : plugin.getServer().getWorlds()) {
+            policies.bind(world);
+        }
+
+        InventoryAudit audit = new InventoryAudit(plugin, sender, fileName, policies, groups);
+        audit.pending.addAll(plugin.getServer().getOnlinePlayers());
+        audit.task = plugin.getServer().getScheduler().runTaskTimer(plugin, audit, 1L, 1L);
+        return audit;
+    }
+
+    /**
+     * Checks that a name stays inside the plugin folder: no path separators and no parent references
+     */
+    public static boolean isPlainFileName(String fileName) {
+        return !fileName.isEmpty() && !fileName.contains("..") && fileName.indexOf('/') < 0 && fileName.indexOf('\\') < 0;
+    }
+
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    /**
+     * Snapshots the next players; once all are done, hands the snapshots to the fork-join pool
+     */
+    @Override
+    public void run() {
+        int budget = Math.max(1, plugin.getConfig().getInt("performance.audit-players-per-tick", 5));
+        while (budget-- > 0 && !pending.isEmpty()) {
+            Player player = pending.poll();
+            if (player.isOnline()) {
+                snapshots.add(snapshot(player));
+            }
+        }
+        if (!pending.isEmpty()) {
+            return;
+        }
+
+        task.cancel();
+        ForkJoinPool.commonPool().execute(() -> {
+            String message;
+            try {
+                Totals totals = ForkJoinPool.commonPool().invoke(new EvaluateTask(snapshots, 0, snapshots.size(),
+                        candidate.getGlobal().getRegistry().size(), candidateGroups.size()));
+                Path report = writeReport(totals);
+                message = "§aAudit done: §e" + totals.itemsChanged + " §aof §e" + totals.itemsScanned
+                        + " §aenchanted items would change for §e" + totals.playersAffected + "§a/" + snapshots.size()
+                        + " §aplayers\n§7Report: " + report.getFileName();
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().warning("Inventory audit failed: " + e);
+                message = "§cAudit failed: " + e.getMessage();
+            }
+            String done = message;
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                task = null;
+                sender.sendMessage(done);
+            });
+        });
+    }
+
+    private PlayerSnapshot snapshot(Player player) {
+        EnchantPolicy policy = candidate.get(player.getWorld());
+        EnchantmentRegistry registry = policy.getRegistry();
+        int tier = candidateGroups.resolve(player, plugin.getCachedPermissionLevel(player));
+        // Override caps are indexed by the live registry and replaced rather than changed, so they can be shared
+        int[] overrides = plugin.getOverrides().get(player);
+        PlayerSnapshot snapshot = new PlayerSnapshot(player.getName(), tier, policy,
+                overrides != null && overrides.length == registry.size() ? overrides : null,
+                player.hasPermission("elr.bypass.disabled"), player.hasPermission("elr.bypass.conflicts"));
+
+        // Player inventory contents include the armor and offhand slots
+        for (ItemStack item : player.getInventory().getContents()) {
+            snapshotItem(snapshot, registry, item);
+        }
+        for (ItemStack item : player.getEnderChest().getContents()) {
+            snapshotItem(snapshot, registry, item);
+        }
+        return snapshot;
+    }
+
+    private void snapshotItem(PlayerSnapshot snapshot, EnchantmentRegistry registry, ItemStack item) {
+        if (item == null || !item.hasItemMeta()) {
+            return;
+        }
+        ItemMeta meta = item.getItemMeta();
+        Map<Enchantment, Integer> enchantments = meta instanceof EnchantmentStorageMeta
+                ? ((EnchantmentStorageMeta) meta).getStoredEnchants()
+                : meta.getEnchants();
+        int size = enchantments.size() + registry.size() - registry.serverCount();
+        if (size == 0) {
+            return;
+        }
+
+        int[] indices = new int[size];
+        int[] levels = new int[size];
+        int count = 0;
+        for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
+            int index = registry.indexOf(entry.getKey());
+            if (index >= 0) {
+                indices[count] = index;
+                levels[count++] = entry.getValue();
+            }
+        }
+        CustomEnchantments customEnchantments = plugin.getCustomEnchantments();
+        for (int index = registry.serverCount(); index < registry.size(); index++) {
+            int level = customEnchantments.getLevel(meta, registry.getCustom(index));
+            if (level > 0) {
+                indices[count] = index;
+                levels[count++] = level;
+            }
+        }
+        if (count > 0) {
+            snapshot.items.add(new ItemSnapshot(item.getType(), count, indices, levels));
+        }
+    }
+
+    /**
+     * Evaluates a range of player snapshots, splitting until ranges are small
+     */
+    private static class EvaluateTask extends RecursiveTask<Totals> {
+        private final List<PlayerSnapshot> snapshots;
+        private final int from;
+        private final int to;
+        private final int enchantments;
+        private final int tiers;
+
+        EvaluateTask(List<PlayerSnapshot> snapshots, int from, int to, int enchantments, int tiers) {
+            this.snapshots = snapshots;
+            this.from = from;
+            this.to = to;
+            this.enchantments = enchantments;
+            this.tiers = tiers;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                EvaluateTask left = new EvaluateTask(snapshots, from, middle, enchantments, tiers);
+                left.fork();
+                Totals right = new EvaluateTask(snapshots, middle, to, enchantments, tiers).compute();
+                return left.join().merge(right);
+            }
+
+            Totals totals = new Totals(enchantments, tiers);
+            for (int i = from; i < to; i++) {
+                evaluate(snapshots.get(i), totals);
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Runs {@link EnchantPolicy#correct} on each item like {@link EnchantmentEnforcer#checkAndFixEnchantments}
+     * and counts what would change, without changing anything
+     */
+    private static void evaluate(PlayerSnapshot snapshot, Totals totals) {
+        EnchantPolicy policy = snapshot.policy;
+        int[] levels = new int[policy.getRegistry().size()];
+        EnchantmentChange.Reason[] reasons = new EnchantmentChange.Reason[levels.length];
+        Offender offender = new Offender(snapshot.name, snapshot.tier);
+
+        for (ItemSnapshot item : snapshot.items) {
+            totals.itemsScanned++;
+            for (int i = 0; i < item.count; i++) {
+                levels[item.indices[i]] = item.levels[i];
+            }
+            boolean changed = policy.correct(snapshot.tier, item.type, levels, snapshot.overrides,
+                    snapshot.bypassDisabled, snapshot.bypassConflicts, reasons);
+
+            for (int i = 0; i < item.count; i++) {
+                int index = item.indices[i];
+                int level = item.levels[i];
+                if (levels[index] != level) {
+                    totals.byEnchant[index]++;
+                    switch (reasons[index]) {
+                        case DISABLED:
+                            totals.removed++;
+                            break;
+                        case LEVEL_LIMIT:
+                            totals.reduced++;
+                            offender.worstExcess = Math.max(offender.worstExcess, level - levels[index]);
+                            break;
+                        default:
+                            totals.conflicts++;
+                            break;
+                    }
+                }
+                levels[index] = 0;
+            }
+
+            if (changed) {
+                totals.itemsChanged++;
+                totals.byMaterial[item.type.ordinal()]++;
+                totals.byTier[snapshot.tier]++;
+                offender.items++;
+            }
+        }
+
+        if (offender.items > 0) {
+            totals.playersAffected++;
+            totals.offenders.add(offender);
+            totals.trimOffenders();
+        }
+    }
+
+    private Path writeReport(Totals totals) throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path report = plugin.getDataFolder().toPath().resolve("audit-" + stamp + ".txt");
+        List<String> lines = new ArrayList<>();
+        lines.add("Audit against " + candidateName + " (dry run, nothing was changed)");
+        lines.add("Players: " + snapshots.size() + ", affected: " + totals.playersAffected);
+        lines.add("Enchanted items: " + totals.itemsScanned + ", would change: " + totals.itemsChanged);
+        lines.add("Enchantments removed: " + totals.removed + ", reduced: " + totals.reduced + ", conflicts: " + totals.conflicts);
+
+        if (!snapshots.isEmpty()) {
+            EnchantmentRegistry registry = snapshots.get(0).policy.getRegistry();
+            lines.add("");
+            lines.add("By enchantment:");
+            for (int index : sortedByCount(totals.byEnchant)) {
+                lines.add("  " + registry.getName(index) + ": " + totals.byEnchant[index]);
+            }
+            lines.add("");
+            lines.add("By material:");
+            Material[] materials = Material.values();
+            for (int ordinal : sortedByCount(totals.byMaterial)) {
+                lines.add("  " + materials[ordinal].name() + ": " + totals.byMaterial[ordinal]);
+            }
+            lines.add("");
+            lines.add("By tier:");
+            for (int tier : sortedByCount(totals.byTier)) {
+                lines.add("  " + candidateGroups.getName(tier) + ": " + totals.byTier[tier]);
+            }
+        }
+
+        lines.add("");
+        lines.add("Worst offenders:");
+        for (Offender offender : totals.offenders) {
+            lines.add("  " + offender.name + " (" + candidateGroups.getName(offender.tier) + "): " + offender.items
+                    + " items, worst excess " + offender.worstExcess + " levels");
+        }
+
+        Files.createDirectories(report.getParent());
+        Files.write(report, lines);
+        return report;
+    }
+
+    /**
+     * Gets the positions of all non-zero counts, highest count first
+     */
+    private static List<Integer> sortedByCount(int[] counts) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                positions.add(i);
+            }
+        }
+        positions.sort((a, b) -> Integer.compare(counts[b], counts[a]));
+        return positions;
+    }
+
+    private static class PlayerSnapshot {
+        final String name;
+        final int tier;
+        final EnchantPolicy policy;
+        final int[] overrides;
+        final boolean bypassDisabled;
+        final boolean bypassConflicts;
+        final List<ItemSnapshot> items = new ArrayList<>();
+
+        PlayerSnapshot(String name, int tier, EnchantPolicy policy, int[] overrides, boolean bypassDisabled,
+                       boolean bypassConflicts) {
+            this.name = name;
+            this.tier = tier;
+            this.policy = policy;
+            this.overrides = overrides;
+            this.bypassDisabled = bypassDisabled;
+            this.bypassConflicts = bypassConflicts;
+        }
+    }
+
+    private static class ItemSnapshot {
+        final Material type;
+        final int count;
+        final int[] indices;
+        final int[] levels;
+
+        ItemSnapshot(Material type, int count, int[] indices, int[] levels) {
+            this.type = type;
+            this.count = count;
+            this.indices = indices;
+            this.levels = levels;
+        }
+    }
+
+    private static class Offender {
+        final String name;
+        final int tier;
+        int items;
+        int worstExcess;
+
+        Offender(String name, int tier) {
+            this.name = name;
+            this.tier = tier;
+        }
+    }
+
+    /**
+     * Counters of one evaluated range; merged pairwise up the fork-join tree
+     */
+    private static class Totals {
+        final int[] byEnchant;
+        final int[] byMaterial = new int[Material.values().length];
+        final int[] byTier;
+        final List<Offender> offenders = new ArrayList<>();
+        int itemsScanned;
+        int itemsChanged;
+        int playersAffected;
+        int removed;
+        int reduced;
+        int conflicts;
+
+        Totals(int enchantments, int tiers) {
+            this.byEnchant = new int[enchantments];
+            this.byTier = new int[tiers];
+        }
+
+        Totals merge(Totals other) {
+            for (int i = 0; i < byEnchant.length; i++) {
+                byEnchant[i] += other.byEnchant[i];
+            }
+            for (int i = 0; i < byMaterial.length; i++) {
+                byMaterial[i] += other.byMaterial[i];
+            }
+            for (int i = 0; i < byTier.length; i++) {
+                byTier[i] += other.byTier[i];
+            }
+            offenders.addAll(other.offenders);
+            trimOffenders();
+            itemsScanned += other.itemsScanned;
+            itemsChanged += other.itemsChanged;
+            playersAffected += other.playersAffected;
+            removed += other.removed;
+            reduced += other.reduced;
+            conflicts += other.conflicts;
+            return this;
+        }
+
+        void trimOffenders() {
+            offenders.sort((a, b) -> a.items != b.items ? Integer.compare(b.items, a.items) : Integer.compare(b.worstExcess, a.worstExcess));
+            while (offenders.size() > TOP_OFFENDERS) {
+                offenders.remove(offenders.size() - 1);
+            }
+        }
+    }
+}
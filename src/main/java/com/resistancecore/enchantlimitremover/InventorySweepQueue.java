@@ -0,0 +1,67 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Queue of players whose inventories need a re-check.
+ * A player is queued at most once and a limited number of players is checked per tick.
+ */
+public class InventorySweepQueue implements Runnable {
+    private final EnchantLimitRemover plugin;
+    private final ArrayDeque<UUID> queue = new ArrayDeque<>();
+    private final Set<UUID> queued = new HashSet<>();
+    private BukkitTask task;
+
+    public InventorySweepQueue(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queues a player's inventory for a re-check
+     */
+    public void enqueue(Player player) {
+        if (!queued.add(player.getUniqueId())) {
+            return;
+        }
+        queue.add(player.getUniqueId());
+        if (task == null && plugin.isEnabled()) {
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+        }
+    }
+
+    @Override
+    public void run() {
+        int budget = Math.max(1, plugin.getConfig().getInt("performance.sweep-players-per-tick", 2));
+
+        while (budget > 0 && !queue.isEmpty()) {
+            UUID playerId = queue.poll();
+            queued.remove(playerId);
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player != null) {
+                plugin.getAnalytics().count(EnchantAnalytics.Source.SWEEP);
+                plugin.getEnforcer().checkAndFixPlayerInventory(player);
+                budget--;
+            }
+        }
+
+        if (queue.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        queue.clear();
+        queued.clear();
+    }
+}
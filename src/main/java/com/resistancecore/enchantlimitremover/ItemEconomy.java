@@ -0,0 +1,82 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+/**
+ * Charges plain items of one material from the player's inventory.
+ * Only items without meta count, so named or enchanted items are never taken.
+ */
+public class ItemEconomy implements EconomyBackend {
+    private final Material material;
+
+    public ItemEconomy(Material material) {
+        this.material = material;
+    }
+
+    @Override
+    public String getName() {
+        return "items (" + material.name() + ")";
+    }
+
+    @Override
+    public double getBalance(Player player) {
+        int count = 0;
+        for (ItemStack item : player.getInventory().getStorageContents()) {
+            if (isCurrency(item)) {
+                count += item.getAmount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts matching stacks in one pass over the inventory and, if there are enough, takes the amount from
+     * the recorded slots only. Partly used stacks are changed through their live mirrors and emptied slots are
+     * cleared one by one, so references to other items in the inventory, such as the held item, stay valid.
+     */
+    @Override
+    public boolean withdraw(Player player, double amount) {
+        int needed = (int) Math.ceil(amount);
+        if (needed <= 0) {
+            return true;
+        }
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getStorageContents();
+        int[] slots = new int[contents.length];
+        int matches = 0;
+        int found = 0;
+        for (int slot = 0; slot < contents.length && found < needed; slot++) {
+            if (isCurrency(contents[slot])) {
+                slots[matches++] = slot;
+                found += contents[slot].getAmount();
+            }
+        }
+        if (found < needed) {
+            return false;
+        }
+
+        for (int i = 0; i < matches && needed > 0; i++) {
+            ItemStack stack = contents[slots[i]];
+            int taken = Math.min(needed, stack.getAmount());
+            needed -= taken;
+            if (taken == stack.getAmount()) {
+                inventory.setItem(slots[i], null);
+            } else {
+                stack.setAmount(stack.getAmount() - taken);
+            }
+        }
+        return true;
+    }
+
+    private boolean isCurrency(ItemStack item) {
+        return item != null && item.getType() == material && !item.hasItemMeta();
+    }
+
+    @Override
+    public String format(double amount) {
+        return (long) Math.ceil(amount) + " " + material.name().toLowerCase().replace('_', ' ');
+    }
+}
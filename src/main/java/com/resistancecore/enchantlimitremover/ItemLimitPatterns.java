@@ -0,0 +1,195 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Tag;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Expands the keys of item-specific-limits.items into limits per material.
+ * A key is a material name ({@code DIAMOND_SWORD}), a glob over material names ({@code *_PICKAXE}, {@code ?}
+ * matches one character) or an item or block tag ({@code #swords}, {@code #minecraft:enchantable/armor}).
+ * <p>
+ * Limits are merged per material and enchantment, so a tag can set defaults that a material entry refines.
+ * When several keys set the same enchantment on a material the most specific one wins: a material name beats
+ * any glob, a glob beats any tag, a glob with more literal characters beats one with fewer, and a tag with
+ * fewer materials beats a larger one. Equally specific keys with different values are a conflict; the lower
+ * value is used and the conflict is logged.
+ */
+public final class ItemLimitPatterns {
+    private static final int TAG = 1;
+    private static final int GLOB = 2;
+    private static final int EXACT = 3;
+    private static final int MAX_LOGGED_CONFLICTS = 20;
+
+    private ItemLimitPatterns() {
+    }
+
+    /**
+     * Checks whether a key is a glob or tag rather than a material name
+     */
+    public static boolean isPattern(String key) {
+        return key.startsWith("#") || key.indexOf('*') >= 0 || key.indexOf('?') >= 0;
+    }
+
+    /**
+     * Gets the materials a key matches; empty if it matches none or names an unknown tag
+     */
+    public static List<Material> match(String key) {
+        if (key.startsWith("#")) {
+            NamespacedKey tagKey = NamespacedKey.fromString(key.substring(1).toLowerCase(Locale.ROOT));
+            if (tagKey == null || Bukkit.getServer() == null) {
+                return Collections.emptyList();
+            }
+            Tag<Material> tag = Bukkit.getTag(Tag.REGISTRY_ITEMS, tagKey, Material.class);
+            if (tag == null) {
+                tag = Bukkit.getTag(Tag.REGISTRY_BLOCKS, tagKey, Material.class);
+            }
+            return tag != null ? new ArrayList<>(tag.getValues()) : Collections.emptyList();
+        }
+
+        String name = stripNamespace(key).toUpperCase(Locale.ROOT);
+        if (!isPattern(name)) {
+            Material material = Material.getMaterial(name);
+            return material != null ? List.of(material) : Collections.emptyList();
+        }
+        Pattern glob = toRegex(name);
+        List<Material> matches = new ArrayList<>();
+        for (Material material : Material.values()) {
+            if (!material.isLegacy() && glob.matcher(material.name()).matches()) {
+                matches.add(material);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Expands all keys of a section into enchantment limits per material, keyed by the enchantment names as written
+     * @param items The item-specific-limits.items section
+     * @param logger Receives the expanded size and conflicts, or null to stay quiet
+     */
+    public static Map<Material, Map<String, Integer>> expand(ConfigurationSection items, Logger logger) {
+        Map<Material, Map<String, Cell>> cells = new HashMap<>();
+        List<String> conflicts = new ArrayList<>();
+        int patterns = 0;
+
+        for (String key : items.getKeys(false)) {
+            ConfigurationSection limits = items.getConfigurationSection(key);
+            if (limits == null) {
+                continue;
+            }
+            List<Material> materials = match(key);
+            if (materials.isEmpty()) {
+                if (logger != null) {
+                    logger.warning("item-specific-limits key " + key + " matches no materials");
+                }
+                continue;
+            }
+            if (isPattern(key)) {
+                patterns++;
+            }
+
+            long rank = rank(key, materials.size());
+            for (Material material : materials) {
+                Map<String, Cell> row = cells.computeIfAbsent(material, m -> new LinkedHashMap<>());
+                for (String enchantKey : limits.getKeys(false)) {
+                    if (!limits.isInt(enchantKey)) {
+                        continue;
+                    }
+                    String enchant = enchantKey.toLowerCase(Locale.ROOT);
+                    int value = limits.getInt(enchantKey);
+                    Cell cell = row.get(enchant);
+                    if (cell == null || rank > cell.rank) {
+                        row.put(enchant, new Cell(value, rank, key));
+                    } else if (rank == cell.rank && value != cell.value) {
+                        conflicts.add(material.name() + "." + enchant + ": " + cell.key + "=" + cell.value + ", " + key + "=" + value);
+                        if (value < cell.value) {
+                            row.put(enchant, new Cell(value, rank, key));
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Material, Map<String, Integer>> expanded = new HashMap<>();
+        for (Map.Entry<Material, Map<String, Cell>> entry : cells.entrySet()) {
+            Map<String, Integer> row = new HashMap<>();
+            for (Map.Entry<String, Cell> cell : entry.getValue().entrySet()) {
+                row.put(cell.getKey(), cell.getValue().value);
+            }
+            expanded.put(entry.getKey(), row);
+        }
+
+        if (logger != null) {
+            logger.info("Expanded " + items.getKeys(false).size() + " item-specific-limits entries (" + patterns
+                    + " tags or globs) to " + expanded.size() + " materials");
+            for (int i = 0; i < Math.min(conflicts.size(), MAX_LOGGED_CONFLICTS); i++) {
+                logger.warning("Conflicting item-specific limits, using the lower value: " + conflicts.get(i));
+            }
+            if (conflicts.size() > MAX_LOGGED_CONFLICTS) {
+                logger.warning("... and " + (conflicts.size() - MAX_LOGGED_CONFLICTS) + " more conflicting item-specific limits");
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Orders keys by precedence: kind first, then specificity within the kind
+     */
+    private static long rank(String key, int size) {
+        if (key.startsWith("#")) {
+            return ((long) TAG << 32) | (Integer.MAX_VALUE - size);
+        }
+        if (isPattern(key)) {
+            int literals = 0;
+            for (char c : stripNamespace(key).toCharArray()) {
+                if (c != '*' && c != '?') {
+                    literals++;
+                }
+            }
+            return ((long) GLOB << 32) | literals;
+        }
+        return (long) EXACT << 32;
+    }
+
+    private static String stripNamespace(String key) {
+        return key.regionMatches(true, 0, "minecraft:", 0, 10) ? key.substring(10) : key;
+    }
+
+    private static Pattern toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static class Cell {
+        final int value;
+        final long rank;
+        final String key;
+
+        Cell(int value, long rank, String key) {
+            this.value = value;
+            this.rank = rank;
+            this.key = key;
+        }
+    }
+}
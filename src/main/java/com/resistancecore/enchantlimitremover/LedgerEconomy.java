@@ -0,0 +1,185 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.entity.Player;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A built-in balance ledger for servers without Vault.
+ * Balances live in memory and every change is appended to ledger.journal as {@code <uuid> <balance>};
+ * on startup the journal is replayed, so the last line for a player wins.
+ * <p>
+ * Appends are handed to a writer thread, which drains everything queued since its last write and makes the
+ * whole batch durable with a single fsync (group commit). A burst of charges costs one disk flush instead of
+ * one per charge, and the main thread never waits for the disk. On shutdown the queue is flushed and the
+ * journal is compacted to one line per player.
+ */
+public class LedgerEconomy implements EconomyBackend, Runnable {
+    private static final String STOP = "";
+
+    private final EnchantLimitRemover plugin;
+    private final Path journal;
+    private final double startingBalance;
+    private final Map<UUID, Double> balances = new HashMap<>();
+    private final BlockingQueue<String> pending = new LinkedBlockingQueue<>();
+    private FileChannel channel;
+    private Thread writer;
+
+    public LedgerEconomy(EnchantLimitRemover plugin, double startingBalance) {
+        this.plugin = plugin;
+        this.journal = plugin.getDataFolder().toPath().resolve("ledger.journal");
+        this.startingBalance = startingBalance;
+    }
+
+    /**
+     * Replays the journal and starts the writer thread
+     */
+    public void open() throws IOException {
+        if (Files.exists(journal)) {
+            int lineNumber = 0;
+            for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+                lineNumber++;
+                String[] parts = line.trim().split(" ");
+                if (parts.length != 2) {
+                    continue;
+                }
+                try {
+                    balances.put(UUID.fromString(parts[0]), Double.parseDouble(parts[1]));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Skipping invalid ledger.journal line " + lineNumber + ": " + line);
+                }
+            }
+        }
+        Files.createDirectories(journal.getParent());
+        channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writer = new Thread(this, "EnchantLimitRemover ledger writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public String getName() {
+        return "ledger (" + balances.size() + " accounts)";
+    }
+
+    @Override
+    public double getBalance(Player player) {
+        return getBalance(player.getUniqueId());
+    }
+
+    public double getBalance(UUID uuid) {
+        return balances.getOrDefault(uuid, startingBalance);
+    }
+
+    @Override
+    public boolean withdraw(Player player, double amount) {
+        double balance = getBalance(player);
+        if (balance < amount) {
+            return false;
+        }
+        set(player.getUniqueId(), balance - amount);
+        return true;
+    }
+
+    /**
+     * Sets a balance and journals the change
+     */
+    public void set(UUID uuid, double balance) {
+        balances.put(uuid, balance);
+        pending.add(uuid + " " + balance + "\n");
+    }
+
+    @Override
+    public String format(double amount) {
+        return String.format("%.2f", amount);
+    }
+
+    @Override
+    public void run() {
+        List<String> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(pending.take());
+                pending.drainTo(batch);
+                boolean stop = batch.remove(STOP);
+                write(batch);
+                batch.clear();
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Interrupting would close the channel mid-write, so close() stops the thread with STOP instead
+        }
+    }
+
+    private void write(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder(batch.size() * 56);
+        for (String line : batch) {
+            text.append(line);
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not write " + batch.size() + " ledger entries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes pending entries, stops the writer and compacts the journal
+     */
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        pending.add(STOP);
+        try {
+            writer.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+
+        Path compacted = journal.resolveSibling("ledger.journal.tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (Map.Entry<UUID, Double> entry : balances.entrySet()) {
+                out.write(entry.getKey() + " " + entry.getValue());
+                out.newLine();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not compact ledger.journal: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(compacted, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not compact ledger.journal: " + e.getMessage());
+        }
+    }
+}
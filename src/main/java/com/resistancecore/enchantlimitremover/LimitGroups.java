@@ -0,0 +1,291 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * The limit tiers players are sorted into.
+ * With groups disabled every elr.level.N permission level is a tier; with groups enabled every
+ * configured group is a tier, flattened with its parents on reload. Tier ids index the decision
+ * tables compiled into each {@link EnchantPolicy}.
+ */
+public class LimitGroups {
+    /**
+     * Permission levels checked for elr.level.N, lowest first; tier id is the position in this array
+     */
+    static final int[] PERMISSION_LEVELS = {0, 1, 5, 10, 20, 50, 100, 255, 500, 1000};
+
+    private final boolean enabled;
+    private final List<Group> groups;
+    private final int[] resolveOrder;
+    private final int fallbackTier;
+
+    private LimitGroups(boolean enabled, List<Group> groups, int[] resolveOrder, int fallbackTier) {
+        this.enabled = enabled;
+        this.groups = groups;
+        this.resolveOrder = resolveOrder;
+        this.fallbackTier = fallbackTier;
+    }
+
+    /**
+     * Compiles the groups section, resolving inheritance
+     */
+    public static LimitGroups compile(FileConfiguration config, Logger logger) {
+        ConfigurationSection section = config.getConfigurationSection("groups.definitions");
+        if (!config.getBoolean("groups.enabled", false) || section == null) {
+            return new LimitGroups(false, Collections.emptyList(), new int[0], 0);
+        }
+
+        Map<String, ConfigurationSection> raw = new LinkedHashMap<>();
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection definition = section.getConfigurationSection(name);
+            if (definition != null) {
+                raw.put(name.toLowerCase(), definition);
+            }
+        }
+
+        // Tier 0 is the base tier for players without any group
+        List<Group> groups = new ArrayList<>();
+        groups.add(new Group("base", null, Integer.MIN_VALUE, null, new HashMap<>(), new HashMap<>(), null, 0,
+                new EnumMap<>(Material.class)));
+
+        Map<String, Group> flattened = new HashMap<>();
+        for (String name : raw.keySet()) {
+            Group group = flatten(name, raw, flattened, new HashSet<>(), logger);
+            if (group != null) {
+                groups.add(group);
+            }
+        }
+
+        String defaultGroup = config.getString("groups.default-group", "");
+        int fallbackTier = 0;
+        List<Integer> order = new ArrayList<>();
+        for (int tier = 1; tier < groups.size(); tier++) {
+            Group group = groups.get(tier);
+            if (group.name.equalsIgnoreCase(defaultGroup)) {
+                fallbackTier = tier;
+            }
+            if (group.permission != null) {
+                order.add(tier);
+            }
+        }
+        order.sort((a, b) -> Integer.compare(groups.get(b).priority, groups.get(a).priority));
+
+        int[] resolveOrder = new int[order.size()];
+        for (int i = 0; i < resolveOrder.length; i++) {
+            resolveOrder[i] = order.get(i);
+        }
+        return new LimitGroups(true, groups, resolveOrder, fallbackTier);
+    }
+
+    private static Group flatten(String name, Map<String, ConfigurationSection> raw, Map<String, Group> flattened,
+                                 Set<String> visiting, Logger logger) {
+        Group done = flattened.get(name);
+        if (done != null) {
+            return done;
+        }
+        ConfigurationSection definition = raw.get(name);
+        if (definition == null) {
+            logger.warning("Unknown parent group in groups.definitions: " + name);
+            return null;
+        }
+        if (!visiting.add(name)) {
+            logger.warning("Inheritance cycle in groups.definitions at group " + name);
+            return null;
+        }
+
+        Integer maxLevel = null;
+        Map<String, Integer> enchants = new HashMap<>();
+        Map<String, CapFormula> formulas = new HashMap<>();
+        CapFormula formula = null;
+        int tierBonus = 0;
+        Map<Material, Map<String, Integer>> materials = new EnumMap<>(Material.class);
+
+        // Start from the parent and overlay this group's own values
+        String parentName = definition.getString("inherits");
+        if (parentName != null) {
+            Group parent = flatten(parentName.toLowerCase(), raw, flattened, visiting, logger);
+            if (parent != null) {
+                maxLevel = parent.maxLevel;
+                enchants.putAll(parent.enchants);
+                formulas.putAll(parent.formulas);
+                formula = parent.formula;
+                tierBonus = parent.tierBonus;
+                for (Map.Entry<Material, Map<String, Integer>> entry : parent.materials.entrySet()) {
+                    materials.put(entry.getKey(), new HashMap<>(entry.getValue()));
+                }
+            }
+        }
+
+        if (definition.isInt("max-level")) {
+            maxLevel = definition.getInt("max-level");
+        }
+        if (definition.isInt("tier-bonus")) {
+            tierBonus = definition.getInt("tier-bonus");
+        }
+        if (definition.isString("formula")) {
+            try {
+                formula = CapFormula.parse(definition.getString("formula"));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Group " + name + ": " + e.getMessage());
+            }
+        }
+        ConfigurationSection enchantSection = definition.getConfigurationSection("enchants");
+        if (enchantSection != null) {
+            for (String enchant : enchantSection.getKeys(false)) {
+                // A cap is a level or a formula; either one replaces what the parent set
+                String key = enchant.toLowerCase();
+                if (enchantSection.isString(enchant)) {
+                    try {
+                        formulas.put(key, CapFormula.parse(enchantSection.getString(enchant)));
+                        enchants.remove(key);
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Group " + name + ", " + enchant + ": " + e.getMessage());
+                    }
+                } else {
+                    enchants.put(key, enchantSection.getInt(enchant));
+                    formulas.remove(key);
+                }
+            }
+        }
+        ConfigurationSection materialSection = definition.getConfigurationSection("materials");
+        if (materialSection != null) {
+            for (String materialName : materialSection.getKeys(false)) {
+                Material material = Material.getMaterial(materialName.toUpperCase());
+                ConfigurationSection limits = materialSection.getConfigurationSection(materialName);
+                if (material == null || limits == null) {
+                    logger.warning("Invalid material in group " + name + ": " + materialName);
+                    continue;
+                }
+                Map<String, Integer> caps = materials.computeIfAbsent(material, key -> new HashMap<>());
+                for (String enchant : limits.getKeys(false)) {
+                    caps.put(enchant.toLowerCase(), limits.getInt(enchant));
+                }
+            }
+        }
+
+        String permission = definition.getString("permission", "elr.group." + name);
+        Group group = new Group(name, permission.isEmpty() ? null : permission,
+                definition.getInt("priority", 0), maxLevel, enchants, formulas, formula, tierBonus, materials);
+        flattened.put(name, group);
+        visiting.remove(name);
+        return group;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the number of tiers
+     */
+    public int size() {
+        return enabled ? groups.size() : PERMISSION_LEVELS.length;
+    }
+
+    /**
+     * Gets the group for a tier, or null when groups are disabled
+     */
+    Group getGroup(int tier) {
+        return enabled ? groups.get(tier) : null;
+    }
+
+    /**
+     * Gets a readable name for a tier
+     */
+    public String getName(int tier) {
+        return enabled ? groups.get(tier).name : "level " + PERMISSION_LEVELS[tier];
+    }
+
+    /**
+     * Resolves the tier of a player.
+     * Only called on login, reload and permission refresh; limit queries read the cached tier.
+     * @param permissionLevel The player's elr.level.N level, used when groups are disabled
+     */
+    public int resolve(Player player, int permissionLevel) {
+        if (!enabled) {
+            return legacyTier(permissionLevel);
+        }
+        for (int tier : resolveOrder) {
+            if (player.hasPermission(groups.get(tier).permission)) {
+                return tier;
+            }
+        }
+        return fallbackTier;
+    }
+
+    /**
+     * Finds a tier by group name, or by permission level when groups are disabled
+     * @return The tier, or -1 if no group has that name
+     */
+    public int tierOf(String name) {
+        if (!enabled) {
+            try {
+                return legacyTier(Integer.parseInt(name.trim()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        for (int tier = 0; tier < groups.size(); tier++) {
+            if (groups.get(tier).name.equalsIgnoreCase(name)) {
+                return tier;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the tier of an elr.level.N permission level
+     */
+    static int legacyTier(int permissionLevel) {
+        for (int tier = PERMISSION_LEVELS.length - 1; tier > 0; tier--) {
+            if (PERMISSION_LEVELS[tier] <= permissionLevel) {
+                return tier;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A group flattened with all of its parents
+     */
+    static class Group {
+        final String name;
+        final String permission;
+        final int priority;
+        final Integer maxLevel;
+        final Map<String, Integer> enchants;
+        /** Enchantment caps written as formulas; an enchantment is in either this map or enchants */
+        final Map<String, CapFormula> formulas;
+        /** Cap of enchantments the group sets no cap for, or null to use the max level */
+        final CapFormula formula;
+        final int tierBonus;
+        final Map<Material, Map<String, Integer>> materials;
+
+        Group(String name, String permission, int priority, Integer maxLevel, Map<String, Integer> enchants,
+              Map<String, CapFormula> formulas, CapFormula formula, int tierBonus, Map<Material, Map<String, Integer>> materials) {
+            this.name = name;
+            this.permission = permission;
+            this.priority = priority;
+            this.maxLevel = maxLevel;
+            this.enchants = enchants;
+            this.formulas = formulas;
+            this.formula = formula;
+            this.tierBonus = tierBonus;
+            this.materials = materials;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Command line entry point for fixing player data while the server is stopped.
+ * <p>
+ * Usage: {@code java -cp EnchantLimitRemover.jar:<paper-api and snakeyaml jars> com.resistancecore.enchantlimitremover.MigrationTool
+ * <playerdata dir> <config.yml> [--level N] [--threads N] [--dry-run]}
+ * <p>
+ * Without a running server the enchantment registry, limit groups and profiles are not available,
+ * so the global settings of config.yml are applied by enchantment key for the given permission level.
+ */
+public class MigrationTool {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: MigrationTool <playerdata dir> <config.yml> [--level N] [--threads N] [--dry-run]");
+            System.exit(1);
+            return;
+        }
+
+        int level = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean dryRun = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--dry-run")) {
+                dryRun = true;
+            } else if (args[i].equals("--level") && i + 1 < args.length) {
+                level = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                System.out.println("Unknown option: " + args[i]);
+                System.exit(1);
+                return;
+            }
+        }
+
+        Path playerData = Paths.get(args[0]);
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(new File(args[1]));
+        PlayerDataMigrator migrator = new PlayerDataMigrator(new ConfigRules(config, level), threads, dryRun, uuid -> false);
+        PlayerDataMigrator.Result result = migrator.run(playerData);
+
+        for (String change : result.changes) {
+            System.out.println(change);
+        }
+        System.out.println((dryRun ? "Dry run: " : "") + result.getSummary());
+        System.out.println("Report written to " + result.writeReport(playerData.toAbsolutePath().getParent(), dryRun));
+    }
+
+    /**
+     * Global limits read straight from config.yml, matched by namespaced enchantment key
+     */
+    static class ConfigRules implements PlayerDataMigrator.Rules {
+        private final int maxLevel;
+        private final Set<String> disabled = new HashSet<>();
+        private final Map<String, Map<String, Integer>> itemLimits = new HashMap<>();
+
+        ConfigRules(YamlConfiguration config, int permissionLevel) {
+            Map<String, String> aliases = new HashMap<>();
+            ConfigurationSection aliasSection = config.getConfigurationSection("enchantment-aliases");
+            if (aliasSection != null) {
+                for (String alias : aliasSection.getKeys(false)) {
+                    aliases.put(alias.toLowerCase(Locale.ROOT), aliasSection.getString(alias, alias));
+                }
+            }
+
+            int base = config.getInt("max-enchant-level", 10);
+            boolean usePermissionLevels = config.getBoolean("use-permission-levels", true);
+            int absoluteMaxLevel = config.getInt("security.absolute-max-level", 1000);
+            this.maxLevel = Math.min(usePermissionLevels ? Math.max(base, permissionLevel) : base, absoluteMaxLevel);
+
+            for (String name : config.getStringList("disabled-enchantments")) {
+                disabled.add(key(name, aliases));
+            }
+
+            ConfigurationSection items = config.getConfigurationSection("item-specific-limits.items");
+            if (config.getBoolean("item-specific-limits.enabled", false) && items != null) {
+                // Globs expand against the material list; tags need a server and match nothing here
+                Map<Material, Map<String, Integer>> expanded = ItemLimitPatterns.expand(items, Logger.getLogger("MigrationTool"));
+                for (Map.Entry<Material, Map<String, Integer>> entry : expanded.entrySet()) {
+                    Map<String, Integer> row = new HashMap<>();
+                    for (Map.Entry<String, Integer> limit : entry.getValue().entrySet()) {
+                        row.put(key(limit.getKey(), aliases), limit.getValue());
+                    }
+                    itemLimits.put(entry.getKey().getKey().toString(), row);
+                }
+            }
+        }
+
+        private static String key(String name, Map<String, String> aliases) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            lower = aliases.getOrDefault(lower, lower).toLowerCase(Locale.ROOT);
+            return lower.indexOf(':') >= 0 ? lower : "minecraft:" + lower;
+        }
+
+        @Override
+        public boolean isDisabled(String enchantment) {
+            return disabled.contains(enchantment);
+        }
+
+        @Override
+        public int getMaxLevel(String itemId, String enchantment) {
+            Map<String, Integer> row = itemLimits.get(itemId);
+            Integer limit = row != null ? row.get(enchantment) : null;
+            return limit != null ? Math.min(limit, maxLevel) : maxLevel;
+        }
+    }
+}
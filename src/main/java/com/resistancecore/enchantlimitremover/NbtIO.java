@@ -0,0 +1,324 @@
+package com.resistancecore.enchantlimitremover;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal named binary tag (NBT) reader and writer for offline player data.
+ * Tags are either copied straight from input to output without being kept in memory, or read
+ * into plain Java values: compounds become {@link LinkedHashMap}s, lists become {@link NbtList}s
+ * and numbers keep their boxed type, so writing a value back produces the same tag type.
+ */
+public final class NbtIO {
+    static final byte END = 0;
+    static final byte BYTE = 1;
+    static final byte SHORT = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte FLOAT = 5;
+    static final byte DOUBLE = 6;
+    static final byte BYTE_ARRAY = 7;
+    static final byte STRING = 8;
+    static final byte LIST = 9;
+    static final byte COMPOUND = 10;
+    static final byte INT_ARRAY = 11;
+    static final byte LONG_ARRAY = 12;
+
+    private static final int MAX_DEPTH = 512;
+
+    private NbtIO() {
+    }
+
+    /**
+     * Copies the payload of a tag from input to output without materializing it
+     */
+    public static void copy(DataInput in, DataOutput out, byte type) throws IOException {
+        copy(in, out, type, 0);
+    }
+
+    private static void copy(DataInput in, DataOutput out, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT nested too deeply");
+        }
+        switch (type) {
+            case BYTE:
+                out.writeByte(in.readByte());
+                break;
+            case SHORT:
+                out.writeShort(in.readShort());
+                break;
+            case INT:
+            case FLOAT:
+                out.writeInt(in.readInt());
+                break;
+            case LONG:
+            case DOUBLE:
+                out.writeLong(in.readLong());
+                break;
+            case BYTE_ARRAY: {
+                int length = readLength(in);
+                out.writeInt(length);
+                byte[] buffer = new byte[Math.min(length, 8192)];
+                while (length > 0) {
+                    int chunk = Math.min(length, buffer.length);
+                    in.readFully(buffer, 0, chunk);
+                    out.write(buffer, 0, chunk);
+                    length -= chunk;
+                }
+                break;
+            }
+            case STRING:
+                out.writeUTF(in.readUTF());
+                break;
+            case LIST: {
+                byte elementType = in.readByte();
+                int length = readLength(in);
+                out.writeByte(elementType);
+                out.writeInt(length);
+                for (int i = 0; i < length; i++) {
+                    copy(in, out, elementType, depth + 1);
+                }
+                break;
+            }
+            case COMPOUND:
+                while (true) {
+                    byte childType = in.readByte();
+                    out.writeByte(childType);
+                    if (childType == END) {
+                        break;
+                    }
+                    out.writeUTF(in.readUTF());
+                    copy(in, out, childType, depth + 1);
+                }
+                break;
+            case INT_ARRAY: {
+                int length = readLength(in);
+                out.writeInt(length);
+                for (int i = 0; i < length; i++) {
+                    out.writeInt(in.readInt());
+                }
+                break;
+            }
+            case LONG_ARRAY: {
+                int length = readLength(in);
+                out.writeInt(length);
+                for (int i = 0; i < length; i++) {
+                    out.writeLong(in.readLong());
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    /**
+     * Reads the payload of a tag into a Java value
+     */
+    public static Object read(DataInput in, byte type) throws IOException {
+        return read(in, type, 0);
+    }
+
+    private static Object read(DataInput in, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT nested too deeply");
+        }
+        switch (type) {
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTE_ARRAY: {
+                byte[] value = new byte[readLength(in)];
+                in.readFully(value);
+                return value;
+            }
+            case STRING:
+                return in.readUTF();
+            case LIST: {
+                byte elementType = in.readByte();
+                int length = readLength(in);
+                NbtList list = new NbtList(elementType, new ArrayList<>(Math.min(length, 1024)));
+                for (int i = 0; i < length; i++) {
+                    list.values.add(read(in, elementType, depth + 1));
+                }
+                return list;
+            }
+            case COMPOUND: {
+                Map<String, Object> compound = new LinkedHashMap<>();
+                while (true) {
+                    byte childType = in.readByte();
+                    if (childType == END) {
+                        return compound;
+                    }
+                    String name = in.readUTF();
+                    compound.put(name, read(in, childType, depth + 1));
+                }
+            }
+            case INT_ARRAY: {
+                int[] value = new int[readLength(in)];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = in.readInt();
+                }
+                return value;
+            }
+            case LONG_ARRAY: {
+                long[] value = new long[readLength(in)];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = in.readLong();
+                }
+                return value;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    /**
+     * Writes the payload of a value read by {@link #read}
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(DataOutput out, Object value) throws IOException {
+        switch (typeOf(value)) {
+            case BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case SHORT:
+                out.writeShort((Short) value);
+                break;
+            case INT:
+                out.writeInt((Integer) value);
+                break;
+            case LONG:
+                out.writeLong((Long) value);
+                break;
+            case FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case BYTE_ARRAY: {
+                byte[] array = (byte[]) value;
+                out.writeInt(array.length);
+                out.write(array);
+                break;
+            }
+            case STRING:
+                out.writeUTF((String) value);
+                break;
+            case LIST: {
+                NbtList list = (NbtList) value;
+                out.writeByte(list.values.isEmpty() ? list.elementType : typeOf(list.values.get(0)));
+                out.writeInt(list.values.size());
+                for (Object element : list.values) {
+                    write(out, element);
+                }
+                break;
+            }
+            case COMPOUND:
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                    out.writeByte(typeOf(entry.getValue()));
+                    out.writeUTF(entry.getKey());
+                    write(out, entry.getValue());
+                }
+                out.writeByte(END);
+                break;
+            case INT_ARRAY: {
+                int[] array = (int[]) value;
+                out.writeInt(array.length);
+                for (int element : array) {
+                    out.writeInt(element);
+                }
+                break;
+            }
+            case LONG_ARRAY: {
+                long[] array = (long[]) value;
+                out.writeInt(array.length);
+                for (long element : array) {
+                    out.writeLong(element);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Cannot write " + value.getClass().getName() + " as NBT");
+        }
+    }
+
+    /**
+     * Gets the tag type of a value read by {@link #read}
+     */
+    public static byte typeOf(Object value) {
+        if (value instanceof Byte) {
+            return BYTE;
+        }
+        if (value instanceof Short) {
+            return SHORT;
+        }
+        if (value instanceof Integer) {
+            return INT;
+        }
+        if (value instanceof Long) {
+            return LONG;
+        }
+        if (value instanceof Float) {
+            return FLOAT;
+        }
+        if (value instanceof Double) {
+            return DOUBLE;
+        }
+        if (value instanceof byte[]) {
+            return BYTE_ARRAY;
+        }
+        if (value instanceof String) {
+            return STRING;
+        }
+        if (value instanceof NbtList) {
+            return LIST;
+        }
+        if (value instanceof Map) {
+            return COMPOUND;
+        }
+        if (value instanceof int[]) {
+            return INT_ARRAY;
+        }
+        if (value instanceof long[]) {
+            return LONG_ARRAY;
+        }
+        return END;
+    }
+
+    private static int readLength(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative NBT length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * A list tag with its element type, kept so empty lists are written back unchanged
+     */
+    public static final class NbtList {
+        final byte elementType;
+        final List<Object> values;
+
+        NbtList(byte elementType, List<Object> values) {
+            this.elementType = elementType;
+            this.values = values;
+        }
+    }
+}
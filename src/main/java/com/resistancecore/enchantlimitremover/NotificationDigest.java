@@ -0,0 +1,130 @@
+package com.resistancecore.enchantlimitremover;
+
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collects enforcement notifications per player and sends them once per tick as one message.
+ * A single notification is sent as is; several become a summary of up to notifications.max-lines
+ * lines, in chat or on the action bar. Players get at most one digest per
+ * notifications.min-interval-ticks; anything arriving in between is kept for the next digest.
+ */
+public class NotificationDigest implements Listener, Runnable {
+    private final EnchantLimitRemover plugin;
+    private final Map<UUID, List<String>> pending = new HashMap<>();
+    private final Map<UUID, Integer> lastSent = new HashMap<>();
+    private boolean flushScheduled;
+
+    public NotificationDigest(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    private String getConfigMessage(String key, String defaultMessage) {
+        return plugin.getConfig().getString("messages." + key, defaultMessage)
+                .replace("{prefix}", plugin.getConfig().getString("messages.prefix", "§6[§eELR§6] "));
+    }
+
+    /**
+     * Queues a notification for the next digest of a player
+     */
+    public void add(Player player, String message) {
+        pending.computeIfAbsent(player.getUniqueId(), id -> new ArrayList<>(4)).add(message);
+        schedule();
+    }
+
+    private void schedule() {
+        // One flush task per tick, no matter how many notifications arrive
+        if (!flushScheduled && plugin.isEnabled()) {
+            flushScheduled = true;
+            plugin.getServer().getScheduler().runTask(plugin, this);
+        }
+    }
+
+    @Override
+    public void run() {
+        flushScheduled = false;
+        int tick = plugin.getServer().getCurrentTick();
+        int minInterval = plugin.getConfig().getInt("notifications.min-interval-ticks", 20);
+        boolean actionBar = plugin.getConfig().getString("notifications.mode", "chat").equalsIgnoreCase("actionbar");
+        int maxLines = Math.max(1, plugin.getConfig().getInt("notifications.max-lines", 5));
+
+        Iterator<Map.Entry<UUID, List<String>>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, List<String>> entry = iterator.next();
+            Player player = plugin.getServer().getPlayer(entry.getKey());
+            if (player == null) {
+                iterator.remove();
+                continue;
+            }
+            Integer last = lastSent.get(entry.getKey());
+            if (last != null && tick - last < minInterval) {
+                continue;
+            }
+
+            send(player, entry.getValue(), actionBar, maxLines);
+            lastSent.put(entry.getKey(), tick);
+            iterator.remove();
+        }
+
+        // Rate limited players are retried on a later tick
+        if (!pending.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void send(Player player, List<String> lines, boolean actionBar, int maxLines) {
+        if (actionBar) {
+            String text = lines.size() == 1 ? lines.get(0)
+                    : getConfigMessage("notification-actionbar", "§6{count} enchantment changes were made to your items")
+                            .replace("{count}", String.valueOf(lines.size()));
+            player.sendActionBar(LegacyComponentSerializer.legacySection().deserialize(text));
+            return;
+        }
+        if (lines.size() == 1) {
+            player.sendMessage(lines.get(0));
+            return;
+        }
+
+        StringBuilder message = new StringBuilder(getConfigMessage("notification-summary", "§6{count} enchantment changes were made to your items:")
+                .replace("{count}", String.valueOf(lines.size())));
+        int shown = Math.min(lines.size(), maxLines);
+        for (int i = 0; i < shown; i++) {
+            message.append("\n§7- ").append(lines.get(i));
+        }
+        if (lines.size() > shown) {
+            message.append("\n§7... and ").append(lines.size() - shown).append(" more");
+        }
+        player.sendMessage(message.toString());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        pending.remove(event.getPlayer().getUniqueId());
+        lastSent.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Sends everything still pending, ignoring rate limits
+     */
+    public void shutdown() {
+        for (Map.Entry<UUID, List<String>> entry : pending.entrySet()) {
+            Player player = plugin.getServer().getPlayer(entry.getKey());
+            if (player != null) {
+                send(player, entry.getValue(), false, Math.max(1, plugin.getConfig().getInt("notifications.max-lines", 5)));
+            }
+        }
+        pending.clear();
+        lastSent.clear();
+    }
+}
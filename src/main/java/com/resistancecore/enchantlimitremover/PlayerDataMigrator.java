@@ -0,0 +1,412 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fixes enchantments in offline player data files ({@code world/playerdata/*.dat}).
+ * Files are processed in parallel on a bounded pool. Each file is streamed: everything except the
+ * Inventory and EnderItems lists is copied tag by tag, and only single items are read into memory.
+ * Changed files are written to a temporary file first, synced to disk and then moved over the original.
+ * Just before the move the file is checked again: if its player came online or the server saved it while
+ * it was being processed, the change is dropped and the file counts as skipped.
+ * <p>
+ * Does not use the server, so it also runs from {@link MigrationTool} with the server stopped.
+ */
+public class PlayerDataMigrator {
+    private static final String TEMP_SUFFIX = ".elrtmp";
+
+    private final Rules rules;
+    private final int threads;
+    private final boolean dryRun;
+    private final Predicate<String> skipped;
+
+    private final AtomicInteger filesScanned = new AtomicInteger();
+    private final AtomicInteger filesChanged = new AtomicInteger();
+    private final AtomicInteger filesSkipped = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final AtomicInteger itemsChanged = new AtomicInteger();
+    private final ConcurrentLinkedQueue<String> changes = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param threads Number of worker threads
+     * @param dryRun Report changes without writing any file
+     * @param skipped Tells which player UUIDs (file names without .dat) to leave alone, e.g. players currently
+     *                online; called from worker threads, before a file is read and again before it is replaced
+     */
+    public PlayerDataMigrator(Rules rules, int threads, boolean dryRun, Predicate<String> skipped) {
+        this.rules = rules;
+        this.threads = Math.max(1, threads);
+        this.dryRun = dryRun;
+        this.skipped = skipped;
+    }
+
+    /**
+     * The limits applied to offline items
+     */
+    public interface Rules {
+        boolean isDisabled(String enchantment);
+
+        /**
+         * @param itemId Namespaced item id, e.g. minecraft:diamond_sword
+         * @param enchantment Namespaced enchantment key, e.g. minecraft:sharpness
+         * @return The maximum level, or -1 to leave the enchantment alone
+         */
+        int getMaxLevel(String itemId, String enchantment);
+    }
+
+    /**
+     * Creates rules from a compiled policy for a fixed tier
+     */
+    public static Rules rules(EnchantPolicy policy, int tier) {
+        EnchantmentRegistry registry = policy.getRegistry();
+        return new Rules() {
+            @Override
+            public boolean isDisabled(String enchantment) {
+                return policy.isDisabled(registry.indexOf(enchantment));
+            }
+
+            @Override
+            public int getMaxLevel(String itemId, String enchantment) {
+                int index = registry.indexOf(enchantment);
+                return index >= 0 ? policy.getMaxLevel(tier, index, Material.matchMaterial(itemId)) : -1;
+            }
+        };
+    }
+
+    /**
+     * Processes all player data files in a directory, blocking until done
+     */
+    public Result run(Path playerData) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        // Bounded queue: the directory listing never runs far ahead of the workers
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(playerData, "*.dat")) {
+            for (Path file : files) {
+                String uuid = file.getFileName().toString();
+                uuid = uuid.substring(0, uuid.length() - 4);
+                if (skipped.test(uuid)) {
+                    filesSkipped.incrementAndGet();
+                    continue;
+                }
+                pool.execute(() -> processFile(file));
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+
+        List<String> lines = new ArrayList<>(changes);
+        Collections.sort(lines);
+        return new Result(filesScanned.get(), filesChanged.get(), filesSkipped.get(), filesFailed.get(), itemsChanged.get(),
+                lines, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    private void processFile(Path file) {
+        filesScanned.incrementAndGet();
+        String uuid = file.getFileName().toString().replace(".dat", "");
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        FileChanges fileChanges = new FileChanges(uuid);
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            // A dry run still parses everything but skips compressing the output
+            try (InputStream input = Files.newInputStream(file);
+                 OutputStream target = dryRun ? OutputStream.nullOutputStream() : new GZIPOutputStream(Files.newOutputStream(temp), 8192);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(input, 8192)));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target))) {
+                transform(in, out, fileChanges);
+            }
+
+            if (fileChanges.items == 0) {
+                if (!dryRun) {
+                    Files.deleteIfExists(temp);
+                }
+                return;
+            }
+            if (!dryRun) {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                // The player may have joined and been saved since the file was read; never roll them back
+                if (skipped.test(uuid) || !modified.equals(Files.getLastModifiedTime(file))) {
+                    Files.deleteIfExists(temp);
+                    filesSkipped.incrementAndGet();
+                    changes.add(uuid + ": SKIPPED, changed while being processed");
+                    return;
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            filesChanged.incrementAndGet();
+            itemsChanged.addAndGet(fileChanges.items);
+            changes.addAll(fileChanges.lines);
+        } catch (IOException | RuntimeException e) {
+            filesFailed.incrementAndGet();
+            changes.add(uuid + ": FAILED " + e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Left for the next run to overwrite
+            }
+        }
+    }
+
+    private void transform(DataInputStream in, DataOutputStream out, FileChanges fileChanges) throws IOException {
+        byte rootType = in.readByte();
+        if (rootType != NbtIO.COMPOUND) {
+            throw new IOException("Root tag is not a compound");
+        }
+        out.writeByte(rootType);
+        out.writeUTF(in.readUTF());
+
+        while (true) {
+            byte type = in.readByte();
+            out.writeByte(type);
+            if (type == NbtIO.END) {
+                break;
+            }
+            String name = in.readUTF();
+            out.writeUTF(name);
+            if (type != NbtIO.LIST || (!name.equals("Inventory") && !name.equals("EnderItems"))) {
+                NbtIO.copy(in, out, type);
+                continue;
+            }
+
+            // Items are read one at a time, fixed and written back
+            byte elementType = in.readByte();
+            int length = in.readInt();
+            out.writeByte(elementType);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                Object item = NbtIO.read(in, elementType);
+                if (item instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> compound = (Map<String, Object>) item;
+                    Object slot = compound.get("Slot");
+                    if (fixItem(compound, name + (slot != null ? " slot " + slot : ""), fileChanges)) {
+                        fileChanges.items++;
+                    }
+                }
+                NbtIO.write(out, item);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean fixItem(Map<String, Object> item, String location, FileChanges fileChanges) {
+        Object idValue = item.get("id");
+        if (!(idValue instanceof String)) {
+            return false;
+        }
+        String id = (String) idValue;
+        String where = location + " " + id;
+        boolean changed = false;
+
+        Object components = item.get("components");
+        if (components instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) components;
+            changed |= fixComponent(id, map.get("minecraft:enchantments"), where, fileChanges);
+            changed |= fixComponent(id, map.get("minecraft:stored_enchantments"), where, fileChanges);
+
+            // Shulker boxes and bundles carried in the inventory
+            Object container = map.get("minecraft:container");
+            if (container instanceof NbtIO.NbtList) {
+                for (Object entry : ((NbtIO.NbtList) container).values) {
+                    Object nested = entry instanceof Map ? ((Map<String, Object>) entry).get("item") : null;
+                    if (nested instanceof Map) {
+                        changed |= fixItem((Map<String, Object>) nested, where + " >", fileChanges);
+                    }
+                }
+            }
+            Object bundle = map.get("minecraft:bundle_contents");
+            if (bundle instanceof NbtIO.NbtList) {
+                for (Object nested : ((NbtIO.NbtList) bundle).values) {
+                    if (nested instanceof Map) {
+                        changed |= fixItem((Map<String, Object>) nested, where + " >", fileChanges);
+                    }
+                }
+            }
+        }
+
+        // Data saved before 1.20.5 that the server has not upgraded yet
+        Object tag = item.get("tag");
+        if (tag instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) tag;
+            changed |= fixLegacyList(id, map.get("Enchantments"), where, fileChanges);
+            changed |= fixLegacyList(id, map.get("StoredEnchantments"), where, fileChanges);
+        }
+        return changed;
+    }
+
+    /**
+     * Fixes an enchantments component, either {levels: {...}} or the plain level map
+     */
+    @SuppressWarnings("unchecked")
+    private boolean fixComponent(String id, Object component, String where, FileChanges fileChanges) {
+        if (!(component instanceof Map)) {
+            return false;
+        }
+        Map<String, Object> levels = (Map<String, Object>) component;
+        if (levels.get("levels") instanceof Map) {
+            levels = (Map<String, Object>) levels.get("levels");
+        }
+
+        boolean changed = false;
+        Iterator<Map.Entry<String, Object>> iterator = levels.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            if (!(entry.getValue() instanceof Integer)) {
+                continue;
+            }
+            int level = (Integer) entry.getValue();
+            int fixed = fixLevel(id, entry.getKey(), level);
+            if (fixed == level) {
+                continue;
+            }
+            if (fixed <= 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(fixed);
+            }
+            fileChanges.add(where + ": " + entry.getKey() + " " + level + " -> " + (fixed <= 0 ? "removed" : fixed));
+            changed = true;
+        }
+        return changed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean fixLegacyList(String id, Object list, String where, FileChanges fileChanges) {
+        if (!(list instanceof NbtIO.NbtList)) {
+            return false;
+        }
+        boolean changed = false;
+        Iterator<Object> iterator = ((NbtIO.NbtList) list).values.iterator();
+        while (iterator.hasNext()) {
+            Object element = iterator.next();
+            if (!(element instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> enchantment = (Map<String, Object>) element;
+            Object key = enchantment.get("id");
+            Object value = enchantment.get("lvl");
+            if (!(key instanceof String) || !(value instanceof Number)) {
+                continue;
+            }
+            int level = ((Number) value).intValue();
+            int fixed = fixLevel(id, (String) key, level);
+            if (fixed == level) {
+                continue;
+            }
+            if (fixed <= 0) {
+                iterator.remove();
+            } else {
+                enchantment.put("lvl", value instanceof Short ? (Object) (short) fixed : (Object) fixed);
+            }
+            fileChanges.add(where + ": " + key + " " + level + " -> " + (fixed <= 0 ? "removed" : fixed));
+            changed = true;
+        }
+        return changed;
+    }
+
+    private int fixLevel(String id, String enchantment, int level) {
+        if (rules.isDisabled(enchantment)) {
+            return 0;
+        }
+        int maxLevel = rules.getMaxLevel(id, enchantment);
+        return maxLevel >= 0 && level > maxLevel ? maxLevel : level;
+    }
+
+    /**
+     * Changes collected for a single file
+     */
+    private static class FileChanges {
+        final String uuid;
+        final List<String> lines = new ArrayList<>();
+        int items;
+
+        FileChanges(String uuid) {
+            this.uuid = uuid;
+        }
+
+        void add(String change) {
+            lines.add(uuid + ": " + change);
+        }
+    }
+
+    /**
+     * Totals and change lines of a migration run
+     */
+    public static class Result {
+        public final int filesScanned;
+        public final int filesChanged;
+        public final int filesSkipped;
+        public final int filesFailed;
+        public final int itemsChanged;
+        public final List<String> changes;
+        public final long millis;
+
+        Result(int filesScanned, int filesChanged, int filesSkipped, int filesFailed, int itemsChanged, List<String> changes, long millis) {
+            this.filesScanned = filesScanned;
+            this.filesChanged = filesChanged;
+            this.filesSkipped = filesSkipped;
+            this.filesFailed = filesFailed;
+            this.itemsChanged = itemsChanged;
+            this.changes = changes;
+            this.millis = millis;
+        }
+
+        public String getSummary() {
+            return filesScanned + " files scanned, " + filesChanged + " changed, " + filesSkipped + " skipped, " + filesFailed + " failed, "
+                    + itemsChanged + " items fixed in " + millis + " ms";
+        }
+
+        /**
+         * Writes the summary and every change line to a report file in the given directory
+         * @return The report file
+         */
+        public Path writeReport(Path directory, boolean dryRun) throws IOException {
+            Files.createDirectories(directory);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            Path report = directory.resolve("migration-" + stamp + ".txt");
+            List<String> lines = new ArrayList<>();
+            lines.add((dryRun ? "Dry run: " : "") + getSummary());
+            lines.addAll(changes);
+            Files.write(report, lines);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player limit overrides granted with /elrenchant override.
+ * Overrides are stored in the player's persistent data container as {@code name=level@expiry;...}
+ * ({@code *} for all enchantments, expiry 0 for permanent) and read into one int array per player at login,
+ * indexed like the registry, so limit resolution is a null check for everyone else and one array read otherwise.
+ * A timer removes expired overrides and re-checks the affected inventories. Main thread only.
+ */
+public class PlayerOverrides implements Listener, Runnable {
+    /**
+     * Name used for an override that applies to every enchantment
+     */
+    public static final String ALL = "*";
+
+    private final EnchantLimitRemover plugin;
+    private final NamespacedKey key;
+    private final Map<UUID, Overrides> overrides = new HashMap<>();
+    private BukkitTask expiryTask;
+
+    public PlayerOverrides(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+        this.key = new NamespacedKey(plugin, "limit_overrides");
+    }
+
+    /**
+     * Applies an override cap to a cap resolved from the policy
+     * @param caps The caps of {@link #get(Player)}, may be null
+     */
+    public static int apply(int[] caps, int index, int cap) {
+        if (caps == null || index < 0) {
+            return cap;
+        }
+        int override = caps[index];
+        return override > 0 ? override : cap;
+    }
+
+    /**
+     * Re-reads the overrides of all online players against the current registry and restarts the expiry task
+     */
+    public void load() {
+        overrides.clear();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            read(player);
+        }
+
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+        long interval = plugin.getConfig().getLong("overrides.expiry-check-seconds", 10) * 20L;
+        if (interval > 0) {
+            expiryTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this, interval, interval);
+        }
+    }
+
+    /**
+     * Gets the override caps of a player indexed by enchantment, 0 where no override applies,
+     * or null if the player has none
+     */
+    public int[] get(Player player) {
+        if (overrides.isEmpty()) {
+            return null;
+        }
+        Overrides entry = overrides.get(player.getUniqueId());
+        return entry != null ? entry.caps : null;
+    }
+
+    /**
+     * Gets the stored override entries of a player for display
+     */
+    public List<Entry> getEntries(Player player) {
+        Overrides entry = overrides.get(player.getUniqueId());
+        return entry != null ? entry.entries : List.of();
+    }
+
+    /**
+     * Sets or replaces an override and stores it in the player's data
+     * @param name A registry name or {@link #ALL}
+     * @param level The cap, or 0 to remove the override
+     * @param expires Expiry in epoch milliseconds, or 0 for permanent
+     */
+    public void set(Player player, String name, int level, long expires) {
+        List<Entry> entries = new ArrayList<>(getEntries(player));
+        entries.removeIf(entry -> entry.name.equals(name));
+        if (level > 0) {
+            entries.add(new Entry(name, level, expires));
+        }
+        store(player, entries);
+        plugin.getSweepQueue().enqueue(player);
+    }
+
+    private void read(Player player) {
+        String stored = player.getPersistentDataContainer().get(key, PersistentDataType.STRING);
+        if (stored == null || stored.isEmpty()) {
+            overrides.remove(player.getUniqueId());
+            return;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (String part : stored.split(";")) {
+            int equals = part.lastIndexOf('=');
+            int at = part.lastIndexOf('@');
+            if (equals <= 0 || at < equals) {
+                continue;
+            }
+            try {
+                entries.add(new Entry(part.substring(0, equals), Integer.parseInt(part.substring(equals + 1, at)),
+                        Long.parseLong(part.substring(at + 1))));
+            } catch (NumberFormatException e) {
+                plugin.getLogger().warning("Ignoring malformed limit override of " + player.getName() + ": " + part);
+            }
+        }
+        compile(player, entries);
+    }
+
+    private void store(Player player, List<Entry> entries) {
+        PersistentDataContainer container = player.getPersistentDataContainer();
+        if (entries.isEmpty()) {
+            container.remove(key);
+        } else {
+            StringBuilder out = new StringBuilder();
+            for (Entry entry : entries) {
+                if (out.length() > 0) {
+                    out.append(';');
+                }
+                out.append(entry.name).append('=').append(entry.level).append('@').append(entry.expires);
+            }
+            container.set(key, PersistentDataType.STRING, out.toString());
+        }
+        compile(player, entries);
+    }
+
+    /**
+     * Builds the cap array of a player; specific overrides win over {@link #ALL}
+     */
+    private void compile(Player player, List<Entry> entries) {
+        EnchantmentRegistry registry = plugin.getPolicy().getRegistry();
+        int absoluteMax = plugin.getConfig().getInt("security.absolute-max-level", 1000);
+        int[] caps = new int[registry.size()];
+        long nextExpiry = Long.MAX_VALUE;
+        for (Entry entry : entries) {
+            if (entry.name.equals(ALL)) {
+                Arrays.fill(caps, Math.min(entry.level, absoluteMax));
+            }
+            if (entry.expires > 0) {
+                nextExpiry = Math.min(nextExpiry, entry.expires);
+            }
+        }
+        for (Entry entry : entries) {
+            int index = entry.name.equals(ALL) ? -1 : registry.indexOf(entry.name);
+            if (index >= 0) {
+                caps[index] = Math.min(entry.level, absoluteMax);
+            }
+        }
+
+        if (entries.isEmpty()) {
+            overrides.remove(player.getUniqueId());
+        } else {
+            overrides.put(player.getUniqueId(), new Overrides(List.copyOf(entries), caps, nextExpiry));
+        }
+    }
+
+    /**
+     * Removes expired overrides of online players
+     */
+    @Override
+    public void run() {
+        if (overrides.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            Overrides entry = overrides.get(player.getUniqueId());
+            if (entry == null || entry.nextExpiry > now) {
+                continue;
+            }
+            List<Entry> remaining = new ArrayList<>(entry.entries);
+            remaining.removeIf(e -> e.expires > 0 && e.expires <= now);
+            store(player, remaining);
+            plugin.getSweepQueue().enqueue(player);
+            plugin.debugLog("Expired " + (entry.entries.size() - remaining.size()) + " limit overrides of " + player.getName());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        read(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        overrides.remove(event.getPlayer().getUniqueId());
+    }
+
+    public void shutdown() {
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+        overrides.clear();
+    }
+
+    /**
+     * One stored override
+     */
+    public static class Entry {
+        public final String name;
+        public final int level;
+        public final long expires;
+
+        Entry(String name, int level, long expires) {
+            this.name = name;
+            this.level = level;
+            this.expires = expires;
+        }
+    }
+
+    private static class Overrides {
+        final List<Entry> entries;
+        final int[] caps;
+        final long nextExpiry;
+
+        Overrides(List<Entry> entries, int[] caps, long nextExpiry) {
+            this.entries = entries;
+            this.caps = caps;
+            this.nextExpiry = nextExpiry;
+        }
+    }
+}
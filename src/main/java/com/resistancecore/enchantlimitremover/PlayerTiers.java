@@ -0,0 +1,138 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the limit tier of every online player.
+ * Tiers are resolved at login and on reload; limit queries only read the cached tier.
+ * The optional periodic refresh (groups.refresh-interval-seconds) picks up permission changes in between:
+ * it hashes each player's effective permissions and re-resolves only players whose hash changed, so
+ * players whose permissions stay the same cost one pass over their permissions and keep their cached level.
+ */
+public class PlayerTiers implements Listener, Runnable {
+    private final EnchantLimitRemover plugin;
+    private final Map<UUID, Integer> tiers = new HashMap<>();
+    private final Map<UUID, Integer> permissionHashes = new HashMap<>();
+    private LimitGroups groups;
+    private BukkitTask refreshTask;
+
+    public PlayerTiers(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Applies newly compiled groups, re-resolving all online players and restarting the refresh task
+     */
+    public void load(LimitGroups groups) {
+        this.groups = groups;
+        tiers.clear();
+        permissionHashes.clear();
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        long interval = plugin.getConfig().getLong("groups.refresh-interval-seconds", 0) * 20L;
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            track(player, interval > 0);
+        }
+        if (interval > 0) {
+            refreshTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this, interval, interval);
+        }
+    }
+
+    public LimitGroups getGroups() {
+        return groups;
+    }
+
+    /**
+     * Gets the cached tier of a player, resolving it if the player has none yet
+     */
+    public int getTier(Player player) {
+        Integer tier = tiers.get(player.getUniqueId());
+        if (tier == null) {
+            tier = resolve(player);
+            tiers.put(player.getUniqueId(), tier);
+        }
+        return tier;
+    }
+
+    /**
+     * Resolves and caches the tier of a player, remembering the permission hash when the refresh is on
+     */
+    private void track(Player player, boolean refresh) {
+        tiers.put(player.getUniqueId(), resolve(player));
+        if (refresh) {
+            permissionHashes.put(player.getUniqueId(), permissionHash(player));
+        }
+    }
+
+    private int resolve(Player player) {
+        int tier = groups.resolve(player, plugin.getCachedPermissionLevel(player));
+        plugin.debugLog("Assigned limit tier " + groups.getName(tier) + " to " + player.getName());
+        return tier;
+    }
+
+    /**
+     * Hashes the effective permissions and their values, independent of order
+     */
+    private static int permissionHash(Player player) {
+        int hash = 0;
+        for (PermissionAttachmentInfo info : player.getEffectivePermissions()) {
+            hash += info.getPermission().hashCode() * 31 + (info.getValue() ? 1 : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Re-resolves the tier of players whose permissions changed and re-checks the inventory of players whose
+     * tier changed; the cached permission level is only dropped for players being re-resolved
+     */
+    @Override
+    public void run() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            int hash = permissionHash(player);
+            Integer previousHash = permissionHashes.put(player.getUniqueId(), hash);
+            if (previousHash != null && previousHash == hash) {
+                continue;
+            }
+            plugin.clearPermissionCache(player.getName());
+            int tier = resolve(player);
+            Integer previous = tiers.put(player.getUniqueId(), tier);
+            if (previous != null && previous != tier) {
+                plugin.getSweepQueue().enqueue(player);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        track(event.getPlayer(), refreshTask != null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        tiers.remove(event.getPlayer().getUniqueId());
+        permissionHashes.remove(event.getPlayer().getUniqueId());
+        plugin.clearPermissionCache(event.getPlayer().getName());
+    }
+
+    public void shutdown() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        tiers.clear();
+        permissionHashes.clear();
+    }
+}
@@ -0,0 +1,67 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * {@link EnchantLimitService} backed by the plugin's compiled policies and the enforcer.
+ * The policy and tier are resolved once per call, so bulk queries are one table read per enchantment.
+ */
+public class PolicyLimitService implements EnchantLimitService {
+    private final EnchantLimitRemover plugin;
+
+    public PolicyLimitService(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public int getMaxLevel(Player player, Enchantment enchantment, Material type) {
+        return plugin.getMaxLevel(player, enchantment, type);
+    }
+
+    @Override
+    public void getMaxLevels(Player player, Material type, Enchantment[] enchantments, int[] out) {
+        plugin.getMaxLevels(player, type, enchantments, out);
+    }
+
+    @Override
+    public boolean isDisabled(Player player, Enchantment enchantment) {
+        EnchantPolicy policy = plugin.getPolicy(player.getWorld());
+        return policy.isDisabled(policy.getRegistry().indexOf(enchantment)) && !player.hasPermission("elr.bypass.disabled");
+    }
+
+    @Override
+    public boolean isLegal(Player player, ItemStack item) {
+        return plugin.getEnforcer().isCompliant(player, item);
+    }
+
+    @Override
+    public int validateInventory(Player player, Inventory inventory) {
+        int illegal = 0;
+        for (ItemStack item : inventory.getContents()) {
+            if (!plugin.getEnforcer().isCompliant(player, item)) {
+                illegal++;
+            }
+        }
+        return illegal;
+    }
+
+    @Override
+    public boolean correct(Player player, ItemStack item) {
+        return plugin.getEnforcer().checkAndFixEnchantments(player, item);
+    }
+
+    @Override
+    public int correctInventory(Player player, Inventory inventory) {
+        int fixed = 0;
+        for (ItemStack item : inventory.getContents()) {
+            if (plugin.getEnforcer().checkAndFixEnchantments(player, item)) {
+                fixed++;
+            }
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,176 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.PrepareAnvilEvent;
+import org.bukkit.event.inventory.PrepareGrindstoneEvent;
+import org.bukkit.event.inventory.PrepareInventoryResultEvent;
+import org.bukkit.event.inventory.PrepareItemCraftEvent;
+import org.bukkit.event.inventory.PrepareSmithingEvent;
+import org.bukkit.inventory.CraftingInventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Corrects the results of anvils, smithing tables, grindstones and crafting before the player can take them.
+ * Prepare events fire repeatedly while a player looks at the same result, so the last correction is memoized per
+ * viewer, together with everything else that decides the outcome: the world's policy, the viewer's tier, bypass
+ * permissions and personal overrides. A cached entry is only used for the same viewer and if the offered result is
+ * still equal to the one it was computed for; the correction only depends on the result, so the inputs are not
+ * compared. A hit is a repeat of a correction the viewer already got, with its {@link EnchantmentCorrectEvent},
+ * notification, activity log line and analytics, so none of them are repeated. Another player is never served
+ * a correction computed for someone else. Main thread only.
+ */
+public class ResultCorrections implements Listener {
+    private final EnchantLimitRemover plugin;
+    private final Map<Key, Entry> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private int maxSize;
+
+    public ResultCorrections(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Drops all memoized corrections and reads the cache size
+     */
+    public void load() {
+        cache.clear();
+        maxSize = Math.max(0, plugin.getConfig().getInt("performance.result-cache-size", 256));
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPrepareAnvil(PrepareAnvilEvent event) {
+        correct(event, EnchantAnalytics.Source.ANVIL, "anvil");
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPrepareSmithing(PrepareSmithingEvent event) {
+        correct(event, EnchantAnalytics.Source.SMITHING, "smithing table");
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPrepareGrindstone(PrepareGrindstoneEvent event) {
+        correct(event, EnchantAnalytics.Source.GRINDSTONE, "grindstone");
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPrepareCraft(PrepareItemCraftEvent event) {
+        CraftingInventory inventory = event.getInventory();
+        Player player = viewer(event.getViewers());
+        ItemStack result = inventory.getResult();
+        if (player == null || result == null || result.getType().isAir()) {
+            return;
+        }
+        ItemStack corrected = correct(player, result, EnchantAnalytics.Source.CRAFTING, "crafting");
+        if (corrected != null) {
+            inventory.setResult(corrected);
+        }
+    }
+
+    private void correct(PrepareInventoryResultEvent event, EnchantAnalytics.Source source, String station) {
+        Player player = viewer(event.getViewers());
+        ItemStack result = event.getResult();
+        if (player == null || result == null || result.getType().isAir()) {
+            return;
+        }
+        ItemStack corrected = correct(player, result, source, station);
+        if (corrected != null) {
+            event.setResult(corrected);
+        }
+    }
+
+    private static Player viewer(List<HumanEntity> viewers) {
+        return !viewers.isEmpty() && viewers.get(0) instanceof Player ? (Player) viewers.get(0) : null;
+    }
+
+    /**
+     * Gets the corrected result offered to a player, or null if the result is within limits
+     */
+    private ItemStack correct(Player player, ItemStack result, EnchantAnalytics.Source source, String station) {
+        // Plain results (most crafting) need neither a lookup nor a copy
+        if (!EnchantmentEnforcer.mayCarryEnchantments(result) || !player.hasPermission("elr.use")) {
+            return null;
+        }
+
+        int flags = (player.hasPermission("elr.bypass.disabled") ? 1 : 0) | (player.hasPermission("elr.bypass.conflicts") ? 2 : 0);
+        Key key = new Key(player.getUniqueId(), plugin.getPolicy(player.getWorld()), plugin.getTier(player), flags,
+                plugin.getOverrides().get(player));
+        Entry cached = cache.get(key);
+        if (cached != null && cached.result.equals(result)) {
+            return cached.corrected != null ? cached.corrected.clone() : null;
+        }
+
+        plugin.debugLog("Processing " + station + " result for " + player.getName() + ": " + result.getType());
+        plugin.getAnalytics().count(source);
+        ItemStack corrected = result.clone();
+        boolean modified = plugin.getEnforcer().checkAndFixEnchantments(player, corrected);
+        if (maxSize > 0) {
+            cache.put(key, new Entry(result.clone(), modified ? corrected.clone() : null));
+        }
+        if (!modified) {
+            return null;
+        }
+
+        plugin.debugLog("Modified " + station + " result for " + player.getName());
+        if (plugin.getConfig().getBoolean("security.log-activities", true)) {
+            plugin.getLogger().info("Player " + player.getName() + " used " + station + " with limit enforcement at " + player.getLocation().toString());
+        }
+        return corrected;
+    }
+
+    /**
+     * The viewer and everything a correction depends on besides the offered result
+     */
+    private static class Key {
+        final UUID viewer;
+        final EnchantPolicy policy;
+        final int tier;
+        final int flags;
+        final int[] overrides;
+
+        Key(UUID viewer, EnchantPolicy policy, int tier, int flags, int[] overrides) {
+            this.viewer = viewer;
+            this.policy = policy;
+            this.tier = tier;
+            this.flags = flags;
+            this.overrides = overrides;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return viewer.equals(other.viewer) && policy == other.policy && tier == other.tier
+                    && flags == other.flags && overrides == other.overrides;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((viewer.hashCode() * 31 + System.identityHashCode(policy)) * 31 + tier) * 31 + flags;
+        }
+    }
+
+    private static class Entry {
+        final ItemStack result;
+        final ItemStack corrected;
+
+        Entry(ItemStack result, ItemStack corrected) {
+            this.result = result;
+            this.corrected = corrected;
+        }
+    }
+}
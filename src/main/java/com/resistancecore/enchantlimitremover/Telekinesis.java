@@ -0,0 +1,151 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockDropItemEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Executes the telekinesis custom enchantment.
+ * Drops are accumulated per player, merged by similarity and inserted once per tick
+ * with a single addItem call; whatever does not fit is dropped at the player's feet.
+ */
+public class Telekinesis implements Listener, Runnable {
+    static final String ID = "telekinesis";
+
+    private final EnchantLimitRemover plugin;
+    private final Map<UUID, Pending> pending = new HashMap<>();
+    private boolean flushScheduled;
+
+    public Telekinesis(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        if (event.getExpToDrop() <= 0 || !hasTelekinesis(event.getPlayer())) {
+            return;
+        }
+        event.getPlayer().giveExp(event.getExpToDrop());
+        event.setExpToDrop(0);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockDropItem(BlockDropItemEvent event) {
+        if (event.getItems().isEmpty() || !hasTelekinesis(event.getPlayer())) {
+            return;
+        }
+
+        Pending buffer = getPending(event.getPlayer());
+        for (Item item : event.getItems()) {
+            buffer.drops.add(item.getItemStack());
+        }
+        event.getItems().clear();
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onEntityDeath(EntityDeathEvent event) {
+        // Player deaths keep vanilla drop handling
+        if (event.getEntity() instanceof Player) {
+            return;
+        }
+
+        Player killer = event.getEntity().getKiller();
+        if (killer == null || !hasTelekinesis(killer)) {
+            return;
+        }
+
+        if (!event.getDrops().isEmpty()) {
+            Pending buffer = getPending(killer);
+            for (ItemStack drop : event.getDrops()) {
+                buffer.drops.add(drop);
+            }
+            event.getDrops().clear();
+        }
+
+        if (event.getDroppedExp() > 0) {
+            killer.giveExp(event.getDroppedExp());
+            event.setDroppedExp(0);
+        }
+    }
+
+    /**
+     * Queues already merged drops for insertion into the player's inventory on the next flush
+     */
+    public void queue(Player player, DropBuffer drops) {
+        getPending(player).drops.addAll(drops);
+    }
+
+    /**
+     * Inserts all pending drops now, used when the plugin is disabled
+     */
+    public void shutdown() {
+        run();
+    }
+
+    @Override
+    public void run() {
+        flushScheduled = false;
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<UUID, Pending> entry : pending.entrySet()) {
+            Pending buffer = entry.getValue();
+            Player player = plugin.getServer().getPlayer(entry.getKey());
+
+            if (player == null) {
+                for (ItemStack drop : buffer.drops.getStacks()) {
+                    buffer.location.getWorld().dropItem(buffer.location, drop);
+                }
+                continue;
+            }
+
+            Map<Integer, ItemStack> overflow = player.getInventory().addItem(buffer.drops.toArray());
+            if (!overflow.isEmpty()) {
+                Location feet = player.getLocation();
+                for (ItemStack drop : overflow.values()) {
+                    player.getWorld().dropItem(feet, drop);
+                }
+            }
+        }
+
+        plugin.debugLog("Telekinesis flushed drops for " + pending.size() + " players");
+        pending.clear();
+    }
+
+    private boolean hasTelekinesis(Player player) {
+        return plugin.getCustomEnchantments().getLevel(player.getInventory().getItemInMainHand(), ID) > 0;
+    }
+
+    private Pending getPending(Player player) {
+        Pending buffer = pending.get(player.getUniqueId());
+        if (buffer == null) {
+            buffer = new Pending();
+            pending.put(player.getUniqueId(), buffer);
+        }
+        buffer.location = player.getLocation();
+
+        // One flush task per tick, no matter how many drops arrive
+        if (!flushScheduled && plugin.isEnabled()) {
+            flushScheduled = true;
+            plugin.getServer().getScheduler().runTask(plugin, this);
+        }
+        return buffer;
+    }
+
+    private static class Pending {
+        private final DropBuffer drops = new DropBuffer();
+        private Location location;
+    }
+}
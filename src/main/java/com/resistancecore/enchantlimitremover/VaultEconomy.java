@@ -0,0 +1,45 @@
+package com.resistancecore.enchantlimitremover;
+
+import net.milkbowl.vault.economy.Economy;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.RegisteredServiceProvider;
+
+/**
+ * Charges through the economy plugin registered with Vault.
+ * Only loaded when Vault is installed, so the plugin runs without it.
+ */
+public class VaultEconomy implements EconomyBackend {
+    private final Economy economy;
+
+    private VaultEconomy(Economy economy) {
+        this.economy = economy;
+    }
+
+    /**
+     * Gets the Vault economy, or null if no economy plugin is registered with Vault
+     */
+    static VaultEconomy find(EnchantLimitRemover plugin) {
+        RegisteredServiceProvider<Economy> provider = plugin.getServer().getServicesManager().getRegistration(Economy.class);
+        return provider != null ? new VaultEconomy(provider.getProvider()) : null;
+    }
+
+    @Override
+    public String getName() {
+        return "Vault (" + economy.getName() + ")";
+    }
+
+    @Override
+    public double getBalance(Player player) {
+        return economy.getBalance(player);
+    }
+
+    @Override
+    public boolean withdraw(Player player, double amount) {
+        return economy.has(player, amount) && economy.withdrawPlayer(player, amount).transactionSuccess();
+    }
+
+    @Override
+    public String format(double amount) {
+        return economy.format(amount);
+    }
+}
@@ -0,0 +1,287 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockDropItemEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Executes the vein_miner custom enchantment.
+ * The vein is collected with a bounded flood fill when the first block is broken,
+ * then broken over the following ticks under a block budget shared by all players.
+ */
+public class VeinMiner implements Listener, Runnable {
+    static final String ID = "vein_miner";
+
+    private final EnchantLimitRemover plugin;
+    private final ArrayDeque<Job> jobs = new ArrayDeque<>();
+    private final boolean[] veinable;
+    private BukkitTask task;
+    private Job activeJob;
+
+    private int blocksPerLevel;
+    private int blocksPerTick;
+
+    public VeinMiner(EnchantLimitRemover plugin) {
+        this.plugin = plugin;
+        Material[] materials = Material.values();
+        this.veinable = new boolean[materials.length];
+        for (Material material : materials) {
+            if (material.isLegacy() || !material.isBlock()) {
+                continue;
+            }
+            veinable[material.ordinal()] = material.name().endsWith("_ORE")
+                    || material == Material.ANCIENT_DEBRIS
+                    || Tag.LOGS.isTagged(material);
+        }
+    }
+
+    /**
+     * Reads the vein miner settings from the current configuration
+     */
+    public void load() {
+        CustomEnchantments.Definition definition = plugin.getCustomEnchantments().get(ID);
+        blocksPerLevel = definition != null ? Math.max(1, definition.getSection().getInt("blocks-per-level", 16)) : 16;
+        blocksPerTick = Math.max(1, plugin.getConfig().getInt("performance.vein-miner-blocks-per-tick", 64));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        // Breaks issued by a running job must not start new jobs
+        if (activeJob != null) {
+            return;
+        }
+
+        CustomEnchantments.Definition definition = plugin.getCustomEnchantments().get(ID);
+        Block origin = event.getBlock();
+        if (definition == null || !veinable[origin.getType().ordinal()]) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        ItemStack tool = player.getInventory().getItemInMainHand();
+        int level = Math.min(plugin.getCustomEnchantments().getLevel(tool, ID), definition.getMaxLevel());
+        if (level <= 0) {
+            return;
+        }
+
+        for (Job job : jobs) {
+            if (job.playerId.equals(player.getUniqueId())) {
+                return;
+            }
+        }
+
+        long[] blocks = collectVein(origin, origin.getType(), level * blocksPerLevel);
+        if (blocks.length == 0) {
+            return;
+        }
+
+        boolean telekinesis = plugin.getCustomEnchantments().getLevel(tool, Telekinesis.ID) > 0;
+        jobs.add(new Job(player.getUniqueId(), origin, tool.getType(), telekinesis, blocks));
+        plugin.debugLog("Queued vein of " + blocks.length + " " + origin.getType() + " blocks for " + player.getName());
+
+        if (task == null) {
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onBlockDropItem(BlockDropItemEvent event) {
+        if (activeJob == null || !event.getPlayer().getUniqueId().equals(activeJob.playerId)) {
+            return;
+        }
+
+        // Collect the drops into the job instead of spawning one entity per block
+        for (Item item : event.getItems()) {
+            activeJob.drops.add(item.getItemStack());
+        }
+        event.getItems().clear();
+    }
+
+    @Override
+    public void run() {
+        int budget = blocksPerTick;
+
+        // Round-robin one block per job so a large vein cannot starve other players
+        while (budget > 0 && !jobs.isEmpty()) {
+            Job job = jobs.poll();
+            breakNext(job);
+            budget--;
+
+            if (job.isDone()) {
+                finish(job);
+            } else {
+                jobs.add(job);
+            }
+        }
+
+        if (jobs.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Finishes all running jobs immediately, dropping what was collected so far
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        while (!jobs.isEmpty()) {
+            finish(jobs.poll());
+        }
+    }
+
+    private void breakNext(Job job) {
+        Player player = plugin.getServer().getPlayer(job.playerId);
+        if (player == null || player.getWorld() != job.world
+                || player.getInventory().getItemInMainHand().getType() != job.toolType) {
+            job.cursor = job.blocks.length;
+            return;
+        }
+
+        long key = job.blocks[job.cursor++];
+        int x = unpackX(key);
+        int z = unpackZ(key);
+        if (!job.world.isChunkLoaded(x >> 4, z >> 4)) {
+            return;
+        }
+
+        Block block = job.world.getBlockAt(x, unpackY(key), z);
+        if (block.getType() != job.blockType) {
+            return;
+        }
+
+        activeJob = job;
+        try {
+            player.breakBlock(block);
+        } finally {
+            activeJob = null;
+        }
+    }
+
+    private void finish(Job job) {
+        if (job.drops.isEmpty()) {
+            return;
+        }
+
+        Player player = plugin.getServer().getPlayer(job.playerId);
+        if (job.telekinesis && player != null) {
+            plugin.getTelekinesis().queue(player, job.drops);
+        } else {
+            for (ItemStack drop : job.drops.getStacks()) {
+                job.world.dropItemNaturally(job.origin, drop);
+            }
+        }
+        plugin.debugLog("Vein mining finished with " + job.drops.size() + " merged drop stacks");
+    }
+
+    /**
+     * Collects connected blocks of the same type around the origin, excluding the origin itself.
+     * Uses packed coordinates with an array-backed queue and stops once the limit is reached.
+     */
+    private long[] collectVein(Block origin, Material type, int limit) {
+        World world = origin.getWorld();
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight();
+
+        long[] queue = new long[limit + 1];
+        LongHashSet visited = new LongHashSet(limit * 4);
+        long originKey = pack(origin.getX(), origin.getY(), origin.getZ());
+        visited.add(originKey);
+        queue[0] = originKey;
+        int head = 0;
+        int tail = 1;
+
+        search:
+        while (head < tail) {
+            long current = queue[head++];
+            int x = unpackX(current);
+            int y = unpackY(current);
+            int z = unpackZ(current);
+
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        int ny = y + dy;
+                        if ((dx | dy | dz) == 0 || ny < minY || ny >= maxY) {
+                            continue;
+                        }
+                        int nx = x + dx;
+                        int nz = z + dz;
+                        if (!visited.add(pack(nx, ny, nz)) || !world.isChunkLoaded(nx >> 4, nz >> 4)) {
+                            continue;
+                        }
+                        if (world.getBlockAt(nx, ny, nz).getType() != type) {
+                            continue;
+                        }
+                        queue[tail++] = pack(nx, ny, nz);
+                        if (tail > limit) {
+                            break search;
+                        }
+                    }
+                }
+            }
+        }
+
+        return Arrays.copyOfRange(queue, 1, tail);
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | (y & 0xFFFL);
+    }
+
+    static int unpackX(long key) {
+        return (int) (key >> 38);
+    }
+
+    static int unpackY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    static int unpackZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    private static class Job {
+        private final UUID playerId;
+        private final World world;
+        private final Location origin;
+        private final Material blockType;
+        private final Material toolType;
+        private final long[] blocks;
+        private final DropBuffer drops = new DropBuffer();
+        private final boolean telekinesis;
+        private int cursor;
+
+        Job(UUID playerId, Block origin, Material toolType, boolean telekinesis, long[] blocks) {
+            this.playerId = playerId;
+            this.world = origin.getWorld();
+            this.origin = origin.getLocation().add(0.5, 0.5, 0.5);
+            this.blockType = origin.getType();
+            this.toolType = toolType;
+            this.telekinesis = telekinesis;
+            this.blocks = blocks;
+        }
+
+        boolean isDone() {
+            return cursor >= blocks.length;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.World;
+
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps loaded worlds to their compiled limit profile.
+ * Worlds are bound when they load, so resolving a player's policy is a single identity lookup.
+ */
+public class WorldPolicies {
+    private final EnchantPolicy global;
+    private final Map<String, EnchantPolicy> byWorldName;
+    private final Map<World, EnchantPolicy> byWorld = new IdentityHashMap<>();
+
+    /**
+     * @param global The policy for worlds without a profile
+     * @param byWorldName Profile policies keyed by lowercase world name
+     */
+    public WorldPolicies(EnchantPolicy global, Map<String, EnchantPolicy> byWorldName) {
+        this.global = global;
+        this.byWorldName = byWorldName;
+    }
+
+    public EnchantPolicy getGlobal() {
+        return global;
+    }
+
+    /**
+     * Gets the policy for a world, the global policy if the world has no profile
+     */
+    public EnchantPolicy get(World world) {
+        EnchantPolicy policy = byWorld.get(world);
+        return policy != null ? policy : global;
+    }
+
+    /**
+     * Gets the policy for a world by name, the global policy if the world has no profile.
+     * Unlike {@link #get(World)} this also works for unbound policies.
+     */
+    public EnchantPolicy get(String worldName) {
+        EnchantPolicy policy = byWorldName.get(worldName.toLowerCase(Locale.ROOT));
+        return policy != null ? policy : global;
+    }
+
+    /**
+     * Binds a loaded world to its profile, if it has one
+     */
+    public void bind(World world) {
+        EnchantPolicy policy = byWorldName.get(world.getName().toLowerCase(Locale.ROOT));
+        if (policy != null) {
+            byWorld.put(world, policy);
+        }
+    }
+
+    public void unbind(World world) {
+        byWorld.remove(world);
+    }
+
+    /**
+     * Gets the number of world-specific profiles configured
+     */
+    public int size() {
+        return byWorldName.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CapFormulaTest {
+
+    @Test
+    void evaluatesVariablesAndFunctions() {
+        assertEquals(15, CapFormula.parse("vanilla * 3").evaluate(5, 0, 10, 0));
+        assertEquals(7, CapFormula.parse("vanilla + tierBonus").evaluate(5, 2, 10, 2));
+        assertEquals(20, CapFormula.parse("min(vanilla * (tier + 1), 50)").evaluate(5, 3, 10, 0));
+        assertEquals(12, CapFormula.parse("max(vanilla, level / 2)").evaluate(5, 0, 25, 0));
+    }
+
+    @Test
+    void resultsAreAtLeastOne() {
+        assertEquals(1, CapFormula.parse("level - vanilla").evaluate(5, 0, 5, 0));
+        assertEquals(1, CapFormula.parse("vanilla * tier").evaluate(5, 0, 10, 0));
+        assertEquals(1, CapFormula.parse("vanilla / 10").evaluate(5, 0, 10, 0));
+        assertEquals(1, CapFormula.parse("level / tier").evaluate(5, 0, 0, 0));
+    }
+
+    @Test
+    void rejectsUnknownVariables() {
+        assertThrows(IllegalArgumentException.class, () -> CapFormula.parse("vanilla * tiers"));
+    }
+}
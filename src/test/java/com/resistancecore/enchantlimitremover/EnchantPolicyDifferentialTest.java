@@ -0,0 +1,399 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Differential test of the compiled limit engine. Each iteration generates a random configuration (base and
+ * absolute levels, permission levels, groups with inheritance, group enchant and material limits, item-specific
+ * limits by material and glob, formulas, disabled enchantments and conflicts), compiles it like a reload would,
+ * and compares {@link EnchantPolicy#getMaxLevel} and {@link EnchantPolicy#correct} on random enchantments against
+ * {@link ReferenceLimitEngine}. Corrections are checked both for unowned items and for owners with random
+ * personal overrides and bypass permissions, with custom enchantments on the items.
+ * <p>
+ * The registry is built from the vanilla enchantments below and two custom enchantments, so no server is needed. Configuration i uses
+ * seed + i; run with {@code -Delr.test.seed=<seed> -Delr.test.configs=1} to replay a reported mismatch.
+ * Throughput of both engines is printed when the test finishes.
+ */
+class EnchantPolicyDifferentialTest {
+    private static final int LOOKUPS_PER_CONFIG = 2000;
+    private static final int ITEMS_PER_CONFIG = 100;
+    private static final String[] FORMULAS = {
+            "vanilla", "vanilla * 3", "vanilla + tierBonus", "min(vanilla * tier, 50)", "max(vanilla, level / 2)",
+            "level - vanilla", "(vanilla + 1) * 2 - tier", "max(1, level, tierBonus * vanilla)"
+    };
+    private static final Material[] MATERIALS = {
+            Material.DIAMOND_SWORD, Material.NETHERITE_AXE, Material.IRON_PICKAXE, Material.BOW, Material.CROSSBOW,
+            Material.TRIDENT, Material.FISHING_ROD, Material.DIAMOND_HELMET, Material.IRON_BOOTS, Material.ELYTRA,
+            Material.SHIELD, Material.MACE, Material.BOOK, Material.ENCHANTED_BOOK, Material.STICK
+    };
+    private static final String[] GLOBS = {
+            "*_SWORD", "DIAMOND_*", "*_BOOTS", "?OW", "minecraft:netherite_*", "*PICKAXE", "*BOOK", "*", "*_*"
+    };
+
+    // The vanilla enchantments of 1.21.1 with their max levels and exclusive sets
+    private static final String[] KEYS = {
+            "protection", "fire_protection", "feather_falling", "blast_protection", "projectile_protection",
+            "respiration", "aqua_affinity", "thorns", "depth_strider", "frost_walker", "binding_curse", "soul_speed",
+            "swift_sneak", "sharpness", "smite", "bane_of_arthropods", "knockback", "fire_aspect", "looting",
+            "sweeping_edge", "efficiency", "silk_touch", "unbreaking", "fortune", "power", "punch", "flame",
+            "infinity", "luck_of_the_sea", "lure", "loyalty", "impaling", "riptide", "channeling", "multishot",
+            "quick_charge", "piercing", "density", "breach", "wind_burst", "mending", "vanishing_curse"
+    };
+    private static final int[] MAX_LEVELS = {
+            4, 4, 4, 4, 4, 3, 1, 3, 3, 2, 1, 3, 3, 5, 5, 5, 2, 2, 3, 3, 5, 1, 3, 3, 5, 2, 1, 1, 3, 3, 3, 5, 3, 1, 1,
+            3, 4, 5, 4, 3, 1, 1
+    };
+    private static final String[][] EXCLUSIVE_SETS = {
+            {"protection", "fire_protection", "blast_protection", "projectile_protection"},
+            {"depth_strider", "frost_walker"},
+            {"sharpness", "smite", "bane_of_arthropods", "impaling", "density", "breach"},
+            {"silk_touch", "fortune"},
+            {"infinity", "mending"},
+            {"riptide", "loyalty"},
+            {"riptide", "channeling"},
+            {"multishot", "piercing"}
+    };
+    private static final CustomEnchantments.Definition[] CUSTOMS = {
+            new CustomEnchantments.Definition("lifesteal", new NamespacedKey("enchantlimitremover", "lifesteal"),
+                    "Lifesteal", 3, List.of("sharpness", "smite"), null),
+            new CustomEnchantments.Definition("frostbite", new NamespacedKey("enchantlimitremover", "frostbite"),
+                    "Frostbite", 2, List.of("fire_aspect", "lifesteal"), null)
+    };
+
+    private static EnchantmentRegistry registry;
+    private static int[][] conflicts;
+    private static long lookups;
+    private static long corrections;
+    private static long referenceLookupNanos;
+    private static long compiledLookupNanos;
+    private static long referenceCorrectionNanos;
+    private static long compiledCorrectionNanos;
+    private static Logger quiet;
+
+    @BeforeAll
+    static void buildRegistry() {
+        quiet = Logger.getAnonymousLogger();
+        quiet.setUseParentHandlers(false);
+        String[] keys = new String[KEYS.length];
+        for (int i = 0; i < KEYS.length; i++) {
+            keys[i] = "minecraft:" + KEYS[i];
+        }
+        List<int[]> pairs = new ArrayList<>();
+        for (String[] set : EXCLUSIVE_SETS) {
+            for (int a = 0; a < set.length; a++) {
+                for (int b = a + 1; b < set.length; b++) {
+                    pairs.add(new int[]{indexOf(set[a]), indexOf(set[b])});
+                }
+            }
+        }
+        registry = EnchantmentRegistry.of(keys, MAX_LEVELS, pairs.toArray(new int[0][]), CUSTOMS);
+
+        // The reference gets the custom conflicts from the definitions, not from the registry
+        for (int i = 0; i < CUSTOMS.length; i++) {
+            for (String name : CUSTOMS[i].getConflicts()) {
+                int other = KEYS.length;
+                while (other < KEYS.length + CUSTOMS.length && !CUSTOMS[other - KEYS.length].getId().equals(name)) {
+                    other++;
+                }
+                pairs.add(new int[]{KEYS.length + i, other < KEYS.length + CUSTOMS.length ? other : indexOf(name)});
+            }
+        }
+        conflicts = pairs.toArray(new int[0][]);
+    }
+
+    private static int indexOf(String key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(key);
+    }
+
+    @AfterAll
+    static void printThroughput() {
+        System.out.println("Limit lookups/s: reference " + perSecond(lookups, referenceLookupNanos)
+                + ", compiled " + perSecond(lookups, compiledLookupNanos));
+        System.out.println("Item corrections/s: reference " + perSecond(corrections, referenceCorrectionNanos)
+                + ", compiled " + perSecond(corrections, compiledCorrectionNanos));
+    }
+
+    private static String perSecond(long count, long nanos) {
+        return String.format("%,d", nanos > 0 ? count * 1_000_000_000L / nanos : 0);
+    }
+
+    @Test
+    void compiledPolicyMatchesReference() {
+        long seed = Long.getLong("elr.test.seed", 20240601L);
+        int configs = Integer.getInteger("elr.test.configs", 200);
+        for (int i = 0; i < configs; i++) {
+            runConfig(seed + i);
+        }
+    }
+
+    @Test
+    void conflictingEnchantmentIsRemovedInRegistryOrder() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("conflicts.enforce", true);
+        EnchantPolicy policy = EnchantPolicy.compile(config, registry, LimitGroups.compile(config, quiet), null);
+
+        int[] levels = new int[registry.size()];
+        levels[indexOf("sharpness")] = 5;
+        levels[indexOf("smite")] = 5;
+        levels[indexOf("unbreaking")] = 3;
+        assertTrue(policy.correct(0, Material.DIAMOND_SWORD, levels));
+        assertEquals(5, levels[indexOf("sharpness")]);
+        assertEquals(0, levels[indexOf("smite")]);
+        assertEquals(3, levels[indexOf("unbreaking")]);
+    }
+
+    @Test
+    void overridesAndBypassesApplyToOwnedItems() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("max-enchant-level", 10);
+        config.set("conflicts.enforce", true);
+        config.set("disabled-enchantments", List.of("mending"));
+        EnchantPolicy policy = EnchantPolicy.compile(config, registry, LimitGroups.compile(config, quiet), null);
+        int lifesteal = KEYS.length;
+
+        int[] overrides = new int[registry.size()];
+        overrides[indexOf("sharpness")] = 50;
+        int[] levels = new int[registry.size()];
+        levels[indexOf("sharpness")] = 40;
+        levels[indexOf("mending")] = 1;
+        levels[lifesteal] = 2;
+        EnchantmentChange.Reason[] reasons = new EnchantmentChange.Reason[registry.size()];
+        assertTrue(policy.correct(0, Material.DIAMOND_SWORD, levels, overrides, true, false, reasons));
+        assertEquals(40, levels[indexOf("sharpness")]);
+        assertEquals(1, levels[indexOf("mending")]);
+        assertEquals(0, levels[lifesteal]);
+        assertEquals(EnchantmentChange.Reason.CONFLICT, reasons[lifesteal]);
+
+        levels[lifesteal] = 2;
+        assertTrue(policy.correct(0, Material.DIAMOND_SWORD, levels, null, false, true, reasons));
+        assertEquals(10, levels[indexOf("sharpness")]);
+        assertEquals(0, levels[indexOf("mending")]);
+        assertEquals(2, levels[lifesteal]);
+    }
+
+    private static void runConfig(long configSeed) {
+        Random random = new Random(configSeed);
+        List<Material> mentioned = new ArrayList<>();
+        YamlConfiguration config = randomConfig(random, mentioned);
+        LimitGroups groups = LimitGroups.compile(config, quiet);
+        EnchantPolicy policy = EnchantPolicy.compile(config, registry, groups, null);
+        ReferenceLimitEngine reference = new ReferenceLimitEngine(config, registry, groups, MAX_LEVELS, conflicts);
+
+        // Limit lookups, including general limits and lookups without an item type
+        int[] tiers = new int[LOOKUPS_PER_CONFIG];
+        int[] indices = new int[LOOKUPS_PER_CONFIG];
+        Material[] types = new Material[LOOKUPS_PER_CONFIG];
+        for (int i = 0; i < LOOKUPS_PER_CONFIG; i++) {
+            tiers[i] = random.nextInt(groups.size());
+            indices[i] = random.nextInt(20) == 0 ? -1 : random.nextInt(registry.serverCount());
+            types[i] = random.nextInt(10) == 0 ? null : randomMaterial(random, mentioned);
+        }
+        int[] expected = new int[LOOKUPS_PER_CONFIG];
+        int[] actual = new int[LOOKUPS_PER_CONFIG];
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS_PER_CONFIG; i++) {
+            expected[i] = reference.getMaxLevel(tiers[i], indices[i], types[i]);
+        }
+        long middle = System.nanoTime();
+        for (int i = 0; i < LOOKUPS_PER_CONFIG; i++) {
+            actual[i] = policy.getMaxLevel(tiers[i], indices[i], types[i]);
+        }
+        compiledLookupNanos += System.nanoTime() - middle;
+        referenceLookupNanos += middle - start;
+        lookups += LOOKUPS_PER_CONFIG;
+        for (int i = 0; i < LOOKUPS_PER_CONFIG; i++) {
+            if (expected[i] != actual[i]) {
+                mismatch(configSeed, config, "tier " + groups.getName(tiers[i]) + ", "
+                        + (indices[i] < 0 ? "general limit" : registry.getName(indices[i])) + " on " + types[i]
+                        + ": reference " + expected[i] + ", compiled " + actual[i]);
+            }
+        }
+
+        // Corrections of random sets of enchantments, half of them for an owner with overrides and bypasses
+        int[] levels = new int[registry.size()];
+        EnchantmentChange.Reason[] reasons = new EnchantmentChange.Reason[registry.size()];
+        for (int i = 0; i < ITEMS_PER_CONFIG; i++) {
+            int tier = random.nextInt(groups.size());
+            Material type = random.nextInt(5) == 0 ? Material.ENCHANTED_BOOK : randomMaterial(random, mentioned);
+            Map<Integer, Integer> enchantments = new HashMap<>();
+            int count = 1 + random.nextInt(6);
+            for (int j = 0; j < count; j++) {
+                enchantments.put(random.nextInt(registry.serverCount()), 1 + random.nextInt(random.nextBoolean() ? 10 : 255));
+            }
+            boolean owned = random.nextBoolean();
+            int[] overrides = null;
+            boolean bypassDisabled = false;
+            boolean bypassConflicts = false;
+            if (owned) {
+                for (int index = registry.serverCount(); index < registry.size(); index++) {
+                    if (random.nextBoolean()) {
+                        enchantments.put(index, 1 + random.nextInt(5));
+                    }
+                }
+                if (random.nextBoolean()) {
+                    overrides = new int[registry.size()];
+                    for (int j = random.nextInt(5); j > 0; j--) {
+                        overrides[random.nextInt(registry.serverCount())] = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(100);
+                    }
+                }
+                bypassDisabled = random.nextInt(4) == 0;
+                bypassConflicts = random.nextInt(4) == 0;
+            }
+            Arrays.fill(levels, 0);
+            for (Map.Entry<Integer, Integer> entry : enchantments.entrySet()) {
+                levels[entry.getKey()] = entry.getValue();
+            }
+
+            start = System.nanoTime();
+            Map<Integer, Integer> expectedItem = reference.correct(tier, type, enchantments, overrides, bypassDisabled, bypassConflicts);
+            middle = System.nanoTime();
+            boolean modified = owned
+                    ? policy.correct(tier, type, levels, overrides, bypassDisabled, bypassConflicts, reasons)
+                    : policy.correct(tier, type, levels);
+            compiledCorrectionNanos += System.nanoTime() - middle;
+            referenceCorrectionNanos += middle - start;
+            corrections++;
+
+            Map<Integer, Integer> actualItem = new HashMap<>();
+            for (int index = 0; index < levels.length; index++) {
+                if (levels[index] > 0) {
+                    actualItem.put(index, levels[index]);
+                }
+            }
+            if (!expectedItem.equals(actualItem) || modified == expectedItem.equals(enchantments)) {
+                mismatch(configSeed, config, "tier " + groups.getName(tier) + ", " + type + " " + names(enchantments)
+                        + (owned ? " overrides " + Arrays.toString(overrides) + ", bypass disabled " + bypassDisabled
+                        + ", bypass conflicts " + bypassConflicts : "") + ": reference " + names(expectedItem)
+                        + ", compiled " + names(actualItem) + (modified ? " (modified)" : ""));
+            }
+        }
+    }
+
+    private static void mismatch(long configSeed, YamlConfiguration config, String detail) {
+        fail("seed " + configSeed + ": " + detail + "\n" + config.saveToString());
+    }
+
+    /**
+     * Generates a configuration using the keys the limit engine reads; materials it limits are added to mentioned
+     */
+    private static YamlConfiguration randomConfig(Random random, List<Material> mentioned) {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("max-enchant-level", 1 + random.nextInt(50));
+        config.set("use-permission-levels", random.nextBoolean());
+        config.set("security.absolute-max-level", random.nextInt(4) == 0 ? 5 + random.nextInt(20) : 100 + random.nextInt(901));
+        config.set("conflicts.enforce", random.nextBoolean());
+
+        List<String> disabled = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            disabled.add(randomEnchantment(random));
+        }
+        config.set("disabled-enchantments", disabled);
+
+        config.set("item-specific-limits.enabled", random.nextBoolean());
+        for (int i = random.nextInt(6); i > 0; i--) {
+            String key;
+            if (random.nextInt(3) == 0) {
+                key = GLOBS[random.nextInt(GLOBS.length)];
+            } else {
+                Material material = randomMaterial(random, mentioned);
+                mentioned.add(material);
+                key = material.name();
+            }
+            for (int j = 1 + random.nextInt(3); j > 0; j--) {
+                config.set("item-specific-limits.items." + key + "." + randomEnchantment(random), randomLevel(random));
+            }
+        }
+
+        config.set("enchant-formulas.enabled", random.nextBoolean());
+        if (random.nextBoolean()) {
+            config.set("enchant-formulas.default", randomFormula(random));
+        }
+        for (int i = random.nextInt(3); i > 0; i--) {
+            config.set("enchant-formulas.enchants." + randomEnchantment(random), randomFormula(random));
+        }
+
+        config.set("groups.enabled", random.nextBoolean());
+        int groupCount = 1 + random.nextInt(4);
+        for (int group = 0; group < groupCount; group++) {
+            String path = "groups.definitions.g" + group + ".";
+            // Parents are always earlier groups, so there are no cycles
+            if (group > 0 && random.nextBoolean()) {
+                config.set(path + "inherits", "g" + random.nextInt(group));
+            }
+            if (random.nextBoolean()) {
+                config.set(path + "max-level", 1 + random.nextInt(100));
+            }
+            config.set(path + "priority", random.nextInt(10));
+            if (random.nextInt(3) == 0) {
+                config.set(path + "formula", randomFormula(random));
+            }
+            if (random.nextInt(3) == 0) {
+                config.set(path + "tier-bonus", random.nextInt(20));
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                config.set(path + "enchants." + randomEnchantment(random), random.nextInt(4) == 0 ? randomFormula(random) : randomLevel(random));
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                Material material = randomMaterial(random, mentioned);
+                mentioned.add(material);
+                config.set(path + "materials." + material.name() + "." + randomEnchantment(random), randomLevel(random));
+            }
+        }
+        return config;
+    }
+
+    private static String randomEnchantment(Random random) {
+        return KEYS[random.nextInt(KEYS.length)];
+    }
+
+    private static String randomFormula(Random random) {
+        return FORMULAS[random.nextInt(FORMULAS.length)];
+    }
+
+    private static int randomLevel(Random random) {
+        return random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(random.nextBoolean() ? 10 : 300);
+    }
+
+    /**
+     * Picks a material the configuration limits half of the time, so material rows are exercised
+     */
+    private static Material randomMaterial(Random random, List<Material> mentioned) {
+        if (!mentioned.isEmpty() && random.nextBoolean()) {
+            return mentioned.get(random.nextInt(mentioned.size()));
+        }
+        return MATERIALS[random.nextInt(MATERIALS.length)];
+    }
+
+    private static String names(Map<Integer, Integer> enchantments) {
+        StringBuilder text = new StringBuilder("[");
+        for (Map.Entry<Integer, Integer> entry : enchantments.entrySet()) {
+            if (text.length() > 1) {
+                text.append(", ");
+            }
+            text.append(registry.getName(entry.getKey())).append(' ').append(entry.getValue());
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,316 @@
+package com.resistancecore.enchantlimitremover;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A deliberately naive implementation of the limit rules, used by {@link EnchantPolicyDifferentialTest} to check
+ * the compiled {@link EnchantPolicy} tables and {@link EnchantPolicy#correct}. Every lookup reads the configuration
+ * directly and walks group inheritance by hand, the way limits were resolved before they were compiled, and
+ * conflicts come from a list of pairs, so it shares no table code with the engine it checks. Only the registry is
+ * used to resolve names.
+ * <p>
+ * Covered are the global policy, item-specific limits by material name and glob, and the rules an owned item is
+ * corrected by: bypass permissions, personal overrides and custom enchantments in the conflict check. Not covered
+ * are item tags, which need a server, limit profiles, and the reading and writing of item meta (books and custom
+ * enchantment data), which {@link EnchantmentEnforcer} does around {@link EnchantPolicy#correct}.
+ */
+class ReferenceLimitEngine {
+    private final FileConfiguration config;
+    private final EnchantmentRegistry registry;
+    private final LimitGroups groups;
+    private final int[] vanillaLevels;
+    private final int[][] conflicts;
+
+    /**
+     * @param vanillaLevels The vanilla max level of each server enchantment index
+     * @param conflicts Pairs of conflicting indices, including custom enchantments
+     */
+    ReferenceLimitEngine(FileConfiguration config, EnchantmentRegistry registry, LimitGroups groups,
+                         int[] vanillaLevels, int[][] conflicts) {
+        this.config = config;
+        this.registry = registry;
+        this.groups = groups;
+        this.vanillaLevels = vanillaLevels;
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * Gets the maximum level for an enchantment, like {@link EnchantPolicy#getMaxLevel}
+     * @param index The enchantment index, or -1 for the general limit
+     * @param itemType The item type, or null for the general limit
+     */
+    int getMaxLevel(int tier, int index, Material itemType) {
+        int absoluteMax = config.getInt("security.absolute-max-level", 1000);
+        int maxLevel = config.getInt("max-enchant-level", 10);
+        List<ConfigurationSection> chain = groupChain(tier);
+
+        if (!groups.isEnabled()) {
+            // Permission levels raise the base level
+            int permissionLevel = LimitGroups.PERMISSION_LEVELS[tier];
+            if (config.getBoolean("use-permission-levels", true) && permissionLevel > 0) {
+                maxLevel = Math.max(maxLevel, permissionLevel);
+            }
+        } else {
+            for (ConfigurationSection group : chain) {
+                if (group.isInt("max-level")) {
+                    maxLevel = group.getInt("max-level");
+                    break;
+                }
+            }
+        }
+        if (index < 0) {
+            return Math.min(maxLevel, absoluteMax);
+        }
+
+        // A group's material limit replaces everything but the absolute maximum
+        if (itemType != null) {
+            for (ConfigurationSection group : chain) {
+                Integer limit = find(group.getConfigurationSection("materials." + itemType.name()), index);
+                if (limit != null) {
+                    return Math.min(limit, absoluteMax);
+                }
+            }
+        }
+
+        // Formulas are parsed on every lookup; a group's cap for the enchantment, the global formula for it,
+        // the group's formula and the global default formula are tried in that order
+        int vanilla = vanillaLevels[index];
+        int tierBonus = 0;
+        for (ConfigurationSection group : chain) {
+            if (group.isInt("tier-bonus")) {
+                tierBonus = group.getInt("tier-bonus");
+                break;
+            }
+        }
+        boolean globalFormulas = config.getBoolean("enchant-formulas.enabled", false);
+        Integer cap = null;
+        for (ConfigurationSection group : chain) {
+            ConfigurationSection enchants = group.getConfigurationSection("enchants");
+            String key = findKey(enchants, index);
+            if (key != null) {
+                cap = enchants.isInt(key) ? enchants.getInt(key)
+                        : CapFormula.parse(enchants.getString(key)).evaluate(vanilla, tier, maxLevel, tierBonus);
+                break;
+            }
+        }
+        if (cap == null && globalFormulas) {
+            ConfigurationSection formulas = config.getConfigurationSection("enchant-formulas.enchants");
+            String key = findKey(formulas, index);
+            if (key != null) {
+                cap = CapFormula.parse(formulas.getString(key)).evaluate(vanilla, tier, maxLevel, tierBonus);
+            }
+        }
+        if (cap == null) {
+            for (ConfigurationSection group : chain) {
+                if (group.isString("formula")) {
+                    cap = CapFormula.parse(group.getString("formula")).evaluate(vanilla, tier, maxLevel, tierBonus);
+                    break;
+                }
+            }
+        }
+        if (cap == null && globalFormulas && !config.getString("enchant-formulas.default", "").trim().isEmpty()) {
+            cap = CapFormula.parse(config.getString("enchant-formulas.default")).evaluate(vanilla, tier, maxLevel, tierBonus);
+        }
+        maxLevel = Math.min(cap != null ? cap : maxLevel, absoluteMax);
+
+        // Item-specific limits can only lower the level
+        if (itemType != null && config.getBoolean("item-specific-limits.enabled", false)) {
+            Integer limit = itemLimit(itemType, index);
+            if (limit != null) {
+                maxLevel = Math.min(maxLevel, limit);
+            }
+        }
+        return maxLevel;
+    }
+
+    /**
+     * Gets a tier's group definition followed by its parents, empty for the base tier or without groups
+     */
+    private List<ConfigurationSection> groupChain(int tier) {
+        List<ConfigurationSection> chain = new ArrayList<>();
+        ConfigurationSection definitions = config.getConfigurationSection("groups.definitions");
+        if (!groups.isEnabled() || tier == 0 || definitions == null) {
+            return chain;
+        }
+        String name = groups.getName(tier);
+        while (name != null && chain.size() <= definitions.getKeys(false).size()) {
+            ConfigurationSection group = definitions.getConfigurationSection(name);
+            if (group == null) {
+                break;
+            }
+            chain.add(group);
+            name = group.getString("inherits");
+        }
+        return chain;
+    }
+
+    /**
+     * Finds the item-specific limit for an enchantment on a material by matching every key by hand: a material name
+     * beats any glob, a glob with more literal characters beats one with fewer, and equally specific keys give the
+     * lower value
+     */
+    private Integer itemLimit(Material itemType, int index) {
+        ConfigurationSection items = config.getConfigurationSection("item-specific-limits.items");
+        if (items == null) {
+            return null;
+        }
+        Integer limit = null;
+        int best = -1;
+        for (String key : items.getKeys(false)) {
+            int specificity = specificity(key, itemType.name());
+            Integer value = specificity >= 0 ? find(items.getConfigurationSection(key), index) : null;
+            if (value == null) {
+                continue;
+            }
+            if (specificity > best) {
+                best = specificity;
+                limit = value;
+            } else if (specificity == best) {
+                limit = Math.min(limit, value);
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Gets how specific a key is for a material name: the highest value for the name itself, the number of
+     * literal characters for a matching glob, or -1 if the key does not match
+     */
+    private static int specificity(String key, String material) {
+        String pattern = key.toUpperCase(Locale.ROOT);
+        if (pattern.startsWith("MINECRAFT:")) {
+            pattern = pattern.substring("MINECRAFT:".length());
+        }
+        if (pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+            return pattern.equals(material) ? Integer.MAX_VALUE : -1;
+        }
+        if (!globMatches(pattern, 0, material, 0)) {
+            return -1;
+        }
+        int literals = 0;
+        for (char c : pattern.toCharArray()) {
+            if (c != '*' && c != '?') {
+                literals++;
+            }
+        }
+        return literals;
+    }
+
+    private static boolean globMatches(String pattern, int p, String text, int t) {
+        if (p == pattern.length()) {
+            return t == text.length();
+        }
+        char c = pattern.charAt(p);
+        if (c == '*') {
+            for (int i = t; i <= text.length(); i++) {
+                if (globMatches(pattern, p + 1, text, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return t < text.length() && (c == '?' || c == text.charAt(t)) && globMatches(pattern, p + 1, text, t + 1);
+    }
+
+    /**
+     * Finds the limit a section sets for an enchantment under any of its names
+     */
+    private Integer find(ConfigurationSection section, int index) {
+        if (section == null) {
+            return null;
+        }
+        for (String key : section.getKeys(false)) {
+            if (section.isInt(key) && registry.indexOf(key.toLowerCase()) == index) {
+                return section.getInt(key);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the key under which a section sets a level or formula for an enchantment
+     */
+    private String findKey(ConfigurationSection section, int index) {
+        if (section == null) {
+            return null;
+        }
+        for (String key : section.getKeys(false)) {
+            if ((section.isInt(key) || section.isString(key)) && registry.indexOf(key.toLowerCase()) == index) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Corrects a set of enchantments for an owner like {@link EnchantPolicy#correct}: disabled server enchantments
+     * are removed unless bypassed, levels are capped by the policy or by a personal override above 0, and when
+     * conflicts are enforced and not bypassed an enchantment is dropped if it conflicts with one kept earlier in
+     * registry order. Custom enchantments keep their level and only take part in the conflict check.
+     * @param overrides Personal caps by index, 0 for none, or null
+     * @return The enchantments left, by index
+     */
+    Map<Integer, Integer> correct(int tier, Material itemType, Map<Integer, Integer> enchantments, int[] overrides,
+                                  boolean bypassDisabled, boolean bypassConflicts) {
+        List<String> disabled = config.getStringList("disabled-enchantments");
+        Map<Integer, Integer> left = new LinkedHashMap<>();
+        for (int index = 0; index < registry.size(); index++) {
+            Integer level = enchantments.get(index);
+            if (level == null) {
+                continue;
+            }
+            if (index >= vanillaLevels.length) {
+                left.put(index, level);
+                continue;
+            }
+            boolean isDisabled = false;
+            for (String name : disabled) {
+                isDisabled |= registry.indexOf(name) == index;
+            }
+            int maxLevel = getMaxLevel(tier, index, itemType);
+            if (overrides != null && overrides[index] > 0) {
+                maxLevel = overrides[index];
+            }
+            if (isDisabled && !bypassDisabled) {
+                maxLevel = 0;
+            }
+            if (Math.min(level, maxLevel) > 0) {
+                left.put(index, Math.min(level, maxLevel));
+            }
+        }
+
+        if (!config.getBoolean("conflicts.enforce", false) || bypassConflicts) {
+            return left;
+        }
+        List<Integer> kept = new ArrayList<>();
+        for (int index : new ArrayList<>(left.keySet())) {
+            for (int other : kept) {
+                if (conflicts(index, other)) {
+                    left.remove(index);
+                    break;
+                }
+            }
+            if (left.containsKey(index)) {
+                kept.add(index);
+            }
+        }
+        return left;
+    }
+
+    private boolean conflicts(int a, int b) {
+        for (int[] pair : conflicts) {
+            if ((pair[0] == a && pair[1] == b) || (pair[0] == b && pair[1] == a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}